@@ -0,0 +1,63 @@
+package com.senegas.kickoff.benchmarks;
+
+import com.senegas.kickoff.entities.Ball;
+import com.senegas.kickoff.entities.Player;
+import com.senegas.kickoff.simulation.MatchSimulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ball and player updates
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityBenchmark {
+	private MatchSimulation simulation;
+	private Ball ball;
+	private Player player;
+	private float tickDuration;
+	private long seed;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		// a fresh kick each iteration, the ball would come to rest otherwise
+		simulation = Matches.inPlay(seed++);
+		ball = simulation.getBall();
+		player = simulation.getHomeTeam().getPlayers().get(5);
+		tickDuration = simulation.getTickDuration();
+	}
+
+	@Benchmark
+	public void ballUpdate(Blackhole blackhole) {
+		ball.update(tickDuration);
+		blackhole.consume(ball.getPosition());
+	}
+
+	@Benchmark
+	public void playerUpdate(Blackhole blackhole) {
+		player.update(tickDuration);
+		blackhole.consume(player.getAnimationFrame());
+	}
+
+	@Benchmark
+	public void playerMoveToDesiredPosition(Blackhole blackhole) {
+		player.moveToDesiredPosition();
+		blackhole.consume(player.getPosition());
+	}
+}
@@ -0,0 +1,53 @@
+package com.senegas.kickoff.benchmarks;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.senegas.kickoff.pitches.Pitch;
+import com.senegas.kickoff.simulation.MatchSimulation;
+import com.senegas.kickoff.states.MatchState;
+import com.senegas.kickoff.tactics.Tactic424;
+import com.senegas.kickoff.tactics.Tactic433;
+
+/**
+ * Matches in a realistic state for the benchmarks
+ */
+public final class Matches {
+	public static final int TICKS_PER_SECOND = 50;
+	/** Longest time waited for the kick off, in seconds */
+	private static final int MAX_WARM_UP = 60;
+
+	private Matches() {}
+
+	/**
+	 * Start the headless application the tactic files are read through, once per JVM
+	 */
+	public static synchronized void startHeadless() {
+		if (Gdx.app != null) return;
+
+		new HeadlessApplication(new ApplicationAdapter() {}, new HeadlessApplicationConfiguration());
+		Gdx.app.setLogLevel(Application.LOG_ERROR);
+	}
+
+	/**
+	 * Create a 4-2-4 vs 4-3-3 match, played until after the kick off with the ball
+	 * just kicked, so the players chase a moving ball
+	 * @param seed the match seed
+	 * @return the match
+	 */
+	public static MatchSimulation inPlay(long seed) {
+		startHeadless();
+
+		MatchSimulation simulation = new MatchSimulation(Pitch.Type.CLASSIC, Tactic424.FILE_NAME, Tactic433.FILE_NAME,
+		                                                 TICKS_PER_SECOND, seed);
+		simulation.start();
+		for (int tick = 0; tick < MAX_WARM_UP * TICKS_PER_SECOND && simulation.getState() != MatchState.INPLAY; tick++) {
+			simulation.step();
+		}
+		simulation.getBall().applyForce(400, (int) (seed & 7));
+
+		return simulation;
+	}
+}
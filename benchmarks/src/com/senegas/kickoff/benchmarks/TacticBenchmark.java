@@ -0,0 +1,72 @@
+package com.senegas.kickoff.benchmarks;
+
+import com.senegas.kickoff.entities.Ball;
+import com.senegas.kickoff.entities.Team;
+import com.senegas.kickoff.pitches.Pitch;
+import com.senegas.kickoff.simulation.MatchSimulation;
+import com.senegas.kickoff.tactics.Tactic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tactic lookups, with the ball moving across the whole pitch so every region and field cell is hit
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TacticBenchmark {
+	/** Ball positions visited, in pitch coordinates */
+	private static final int POSITIONS = 1024;
+
+	private Ball ball;
+	private Team team;
+	private Tactic tactic;
+	private final float[] ballX = new float[POSITIONS];
+	private final float[] ballY = new float[POSITIONS];
+	private int position;
+
+	@Setup
+	public void setUp() {
+		MatchSimulation simulation = Matches.inPlay(0);
+		ball = simulation.getBall();
+		team = simulation.getAwayTeam(); // heading south, the mirrored tables
+		tactic = team.getTactic();
+
+		Random random = new Random(0);
+		for (int i = 0; i < POSITIONS; i++) {
+			ballX[i] = (float) (random.nextFloat() * Pitch.PITCH_WIDTH_IN_PX + Pitch.OUTER_BOTTOM_EDGE_X);
+			ballY[i] = (float) (random.nextFloat() * Pitch.PITCH_HEIGHT_IN_PX + Pitch.OUTER_BOTTOM_EDGE_Y);
+		}
+	}
+
+	private void moveBall() {
+		position = (position + 1) & (POSITIONS - 1);
+		ball.setPosition(ballX[position], ballY[position], 0);
+	}
+
+	@Benchmark
+	public void update() {
+		moveBall();
+		tactic.update(ball);
+	}
+
+	@Benchmark
+	public int getRegionIndex() {
+		moveBall();
+		return Tactic.getRegionIndex(ball, team);
+	}
+}
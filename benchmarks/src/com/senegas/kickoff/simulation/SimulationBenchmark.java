@@ -0,0 +1,60 @@
+package com.senegas.kickoff.simulation;
+
+import com.senegas.kickoff.benchmarks.Matches;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collision checks, full simulation ticks and snapshots of a match in play
+ * (in the simulation package to reach {@link MatchSimulation#checkCollisions()})
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulationBenchmark {
+	private MatchSimulation simulation;
+	private long seed;
+	private final MatchSnapshot snapshot = new MatchSnapshot();
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		simulation = Matches.inPlay(seed++);
+		simulation.save(snapshot);
+	}
+
+	@Benchmark
+	public void checkCollisions() {
+		simulation.checkCollisions();
+	}
+
+	@Benchmark
+	public long step() {
+		simulation.step();
+		return simulation.getTick();
+	}
+
+	@Benchmark
+	public void save() {
+		simulation.save(snapshot);
+	}
+
+	@Benchmark
+	public long restore() {
+		simulation.restore(snapshot);
+		return simulation.getTick();
+	}
+}
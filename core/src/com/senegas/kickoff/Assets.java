@@ -0,0 +1,83 @@
+package com.senegas.kickoff;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.senegas.kickoff.pitches.Pitch;
+import com.senegas.kickoff.pitches.PitchFactory;
+
+/**
+ * Files of the game assets, all loaded through the {@link AssetManager} of {@link KickOff}
+ * <p>
+ * The manager counts the references to each asset: every {@code load} must be balanced by an
+ * {@code unload}, and an asset stays resident as long as one of its users did not unload it.
+ * @author Sébastien Sénégas
+ *
+ */
+public final class Assets {
+	public static final String UI_ATLAS = "ui/button.pack";
+	public static final String WHITE_FONT = "font/white.fnt";
+	/** Every sprite drawn during a match, packed from the sheets at build time (see the desktop packSprites task) */
+	public static final String SPRITES = "entities/sprites.atlas";
+	/** Regions of the sprites atlas, named after the packed sheets */
+	public static final String HOME_KIT = "style1a";
+	public static final String AWAY_KIT = "style1b";
+	public static final String BALL = "ball";
+	public static final String CROWD = "sounds/crowd.ogg";
+	public static final String WHISTLE = "sounds/whistle.ogg";
+
+	private Assets() {}
+
+	/**
+	 * Queue the menu assets
+	 * @param assets the asset manager
+	 */
+	public static void loadMenu(AssetManager assets) {
+		assets.load(UI_ATLAS, TextureAtlas.class);
+		assets.load(WHITE_FONT, BitmapFont.class);
+	}
+
+	/**
+	 * Release the menu assets
+	 * @param assets the asset manager
+	 */
+	public static void unloadMenu(AssetManager assets) {
+		assets.unload(UI_ATLAS);
+		assets.unload(WHITE_FONT);
+	}
+
+	/**
+	 * Queue the assets of a match
+	 * @param assets the asset manager
+	 * @param pitchType the pitch type of the match
+	 */
+	public static void loadMatch(AssetManager assets, Pitch.Type pitchType) {
+		assets.load(getPitchFileName(pitchType), TiledMap.class);
+		assets.load(SPRITES, TextureAtlas.class);
+		assets.load(CROWD, Sound.class);
+		assets.load(WHISTLE, Sound.class);
+	}
+
+	/**
+	 * Release the assets of a match
+	 * @param assets the asset manager
+	 * @param pitchType the pitch type of the match
+	 */
+	public static void unloadMatch(AssetManager assets, Pitch.Type pitchType) {
+		assets.unload(getPitchFileName(pitchType));
+		assets.unload(SPRITES);
+		assets.unload(CROWD);
+		assets.unload(WHISTLE);
+	}
+
+	/**
+	 * Get the tile map file of a pitch type
+	 * @param pitchType the pitch type
+	 * @return the tile map file name
+	 */
+	public static String getPitchFileName(Pitch.Type pitchType) {
+		return PitchFactory.getInstance().make(pitchType).getFileName();
+	}
+}
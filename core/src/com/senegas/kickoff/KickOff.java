@@ -1,6 +1,11 @@
 package com.senegas.kickoff;
 
 import com.badlogic.gdx.Game;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.senegas.kickoff.net.LockstepConfig;
 import com.senegas.kickoff.screens.MainMenu;
 
 public class KickOff extends Game {
@@ -8,14 +13,50 @@ public class KickOff extends Game {
 	public static final String TITLE = "Open Kick Off";
     public static final String VERSION = "0.3.5";
 
+    /** Shared by all the screens, see {@link Assets} */
+    private AssetManager assets;
+    /** Settings of the networked matches, null to play locally */
+    private final LockstepConfig lockstep;
+
+	public KickOff() {
+		this(null);
+	}
+
+	/**
+	 * Constructor
+	 * @param lockstep the settings of the networked matches, null to play locally
+	 */
+	public KickOff(LockstepConfig lockstep) {
+		this.lockstep = lockstep;
+	}
+
 	@Override
 	public void create () {
-		setScreen(new MainMenu());
+		assets = new AssetManager();
+		assets.setLoader(TiledMap.class, new TmxMapLoader(new InternalFileHandleResolver()));
+		setScreen(new MainMenu(this));
 	}
 
 	@Override
 	public void dispose() {
 		super.dispose();
+		assets.dispose();
+	}
+
+	/**
+	 * Get the asset manager shared by the screens
+	 * @return the asset manager
+	 */
+	public AssetManager getAssets() {
+		return assets;
+	}
+
+	/**
+	 * Get the settings of the networked matches
+	 * @return the settings, null to play locally
+	 */
+	public LockstepConfig getLockstep() {
+		return lockstep;
 	}
 
 	@Override
@@ -1,14 +1,5 @@
 package com.senegas.kickoff.entities;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.GL20;
-import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.Batch;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector3;
 
@@ -30,20 +21,11 @@ public class Ball {
 	/** bounce angle factor (must be less that 1) */
 	public static final float BOUNCE_SPEED_FACTOR = 0.6f;
 	
-	private final static int SPRITE_WIDTH = 16;
-	private final static int SPRITE_HEIGHT = 16;
-	
-	private Vector3 position;
-	private Vector3 velocity;
-	private Texture texture;
-	private TextureRegion frames[][];
-	private int currentFrameAnimationColumn = 0;
-	private float currentFrameTime = 0.0f;
-	private float maxFrameTime = .1f; // max time between each frame
-	private int runningFrameAnimation[] = { 0, 1, 1, 0 };
-	private int frameCount = 4;	
-	private int currentFrame = 0;
+	private EntityStore store;
+	private Vector3 position = new Vector3();
+	private Vector3 velocity = new Vector3();
 	private float speed = 0;
+	private float friction = 1.0f;
 	private Player owner = null;
 	
 	/** In order to save calculation time, M/K is precalculated */
@@ -53,95 +35,123 @@ public class Ball {
 	/** In order to save calculation time, MG/K is precalculated */
 	private static final float	MG_K = MASS_IN_GRAMMS * GRAVITY / DRAG;		
 	
-	private static ShapeRenderer shapeRenderer = new ShapeRenderer(); // mainly used for debug purpose
+	/** Extra pull applied to an airborne ball (px/s^2), tuned at the original 60 frames per second */
+	private static final float AIRBORNE_GRAVITY = GRAVITY * 60;
+	/** Vertical speed kept after a bounce on the floor */
+	private static final float BOUNCE_RESTITUTION = 0.75f;
+	/** Horizontal slow down while the ball touches the floor (1/s), 1/32 per frame at 60 frames per second */
+	private static final float GROUND_FRICTION = 60 / 32.0f;
+	/** Kick direction cosines and sines indexed by player direction */
+	private static final double KICK_COS[] = new double[8];
+	private static final double KICK_SIN[] = new double[8];
+	static {
+		float angle[] = {0, 45, 90, 135, 180, 225, 270, 315 }; //!Reimp
+		for (int i = 0; i < angle.length; i++) {
+			// convert degrees to radians
+			// libdgx rotation happens in a clockwise direction, but in mathematics it goes counterclockwise
+			// to overcome differences add 90 degrees
+			double radians = MathUtils.degRad * (90.0f - angle[i]);
+			KICK_COS[i] = Math.cos(radians);
+			KICK_SIN[i] = Math.sin(radians);
+		}
+	}
+	/** The ball slot in the entity store */
+	private static final int BALL = EntityStore.BALL;
+	/** Indices of the {@link #integrate(float[], float, float)} state */
+	static final int X = 0, Y = 1, Z = 2, VX = 3, VY = 4, VZ = 5;
+
+	private final float[] state = new float[6];
+	/** Predicted flight, recomputed on demand after the ball was kicked, moved or stopped */
+	private final BallTrajectory trajectory = new BallTrajectory();
+	private boolean trajectoryValid = false;
+	private float tickDuration;
 	
 	/**
 	 * Constructor
+	 * @param store the entity store holding the ball state in its {@link EntityStore#BALL} slot
 	 * @param x position of the ball
 	 * @param y position of the ball
 	 * @param z position of the ball
+	 * @param tickDuration the duration of the simulation ticks updating the ball, in seconds
 	 */
-	public Ball(float x, float y, float z) {
-		position = new Vector3(x, y, z);
-		velocity = new Vector3(0, 0, 0);
-		texture = new Texture("entities/ball.png");
-		frames = TextureRegion.split(texture, SPRITE_WIDTH, SPRITE_HEIGHT);
+	public Ball(EntityStore store, float x, float y, float z, float tickDuration) {
+		this.store = store;
+		this.tickDuration = tickDuration;
+		teleport(x, y, z);
 	}
 	
 	/**
-	 * Draw the ball and shadow animations
-	 * @param batch
+	 * Update the ball's position and velocity
+	 * @param deltaTime
 	 */
-	public void draw(Batch batch) {
+	public void update(float deltaTime) {
+		store.previousX[BALL] = store.x[BALL];
+		store.previousY[BALL] = store.y[BALL];
+		store.previousZ[BALL] = store.z[BALL];
 
-		//System.out.format("currentFrame: %d%n", currentFrame);
-		//System.out.format("x: %f y: %f z: %f%n", position.x, position.y, position.z);
+		state[X] = store.x[BALL];
+		state[Y] = store.y[BALL];
+		state[Z] = store.z[BALL];
+		state[VX] = store.vx[BALL];
+		state[VY] = store.vy[BALL];
+		state[VZ] = store.vz[BALL];
 
-		int scrx = (int)position.x;
-		int scry = (int)position.y;
-		int shadx = scrx + (int)(position.z / 2);
-		int shady = scry + (int)(position.z / 2);
+		integrate(state, deltaTime, friction);
 
-		currentFrame = shadx - scrx;
-		if (currentFrame < 4) {
-			//low ball, sprite contained in shadow
-			scry += position.z / 2;
-			if (currentFrame >= 0 && currentFrame < 8) {
-				batch.draw(frames[0][currentFrame], scrx - SPRITE_WIDTH/2, scry - SPRITE_HEIGHT/2);
-			}
-		}
-		else {
-			//draw shadow
-			int shadowFrame = 8;
-			batch.draw(frames[0][shadowFrame], shadx - SPRITE_WIDTH/2, shady - SPRITE_HEIGHT/2);
-			//draw ball
-			scry += (position.z / 2);
-			currentFrame = (int) Math.min(3, position.z/32);
-			int ballFrame = currentFrame + 4;
-			batch.draw(frames[0][ballFrame], scrx - SPRITE_WIDTH/2, scry - SPRITE_HEIGHT/2);
+		store.x[BALL] = state[X];
+		store.y[BALL] = state[Y];
+		store.z[BALL] = state[Z];
+		store.vx[BALL] = state[VX];
+		store.vy[BALL] = state[VY];
+		store.vz[BALL] = state[VZ];
+
+		if (deltaTime != tickDuration) {
+			tickDuration = deltaTime;
+			trajectoryValid = false;
+		} else if (trajectoryValid) {
+			trajectory.advance();
 		}
 	}
-	
-	public void showPosition(OrthographicCamera camera) {
-		// enable transparency
-		Gdx.gl.glEnable(GL20.GL_BLEND);
-		Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
-		
-		shapeRenderer.setProjectionMatrix(camera.combined);
-		
-		shapeRenderer.begin(ShapeType.Line);
-		shapeRenderer.setColor(new Color(0, 0, 0, 0.5f));
-		shapeRenderer.line(position.x - SPRITE_WIDTH/2, position.y, position.x + SPRITE_WIDTH/2, position.y);
-		shapeRenderer.line(position.x, position.y - SPRITE_HEIGHT/2, position.x, position.y + SPRITE_HEIGHT/2);
-		shapeRenderer.end();
-		
-		Gdx.gl.glDisable(GL20.GL_BLEND);
-	}
-	
+
 	/**
-	 * Update the ball's position and velocity
-	 * @param deltaTime
+	 * Advance a free ball by one step, shared by {@link #update(float)} and {@link BallTrajectory}
+	 * so the prediction follows the simulation exactly
+	 * @param s the ball state {x, y, z, vx, vy, vz}, updated in place
+	 * @param deltaTime the step duration in seconds
+	 * @param friction the pitch friction coefficient
+	 * @return true if the ball bounced on the floor during the step
 	 */
-	public void update(float deltaTime) {
-		velocity.x -= (K_M * velocity.x) * deltaTime;
-		velocity.y -= (K_M * velocity.y) * deltaTime;	
-		velocity.z -= (K_M * velocity.z + GRAVITY) * deltaTime;
+	static boolean integrate(float[] s, float deltaTime, float friction) {
+		float x = s[X], y = s[Y], z = s[Z];
+		float vx = s[VX], vy = s[VY], vz = s[VZ];
+		boolean bounce = false;
+
+		vx -= (K_M * vx) * deltaTime;
+		vy -= (K_M * vy) * deltaTime;	
+		vz -= (K_M * vz + GRAVITY) * deltaTime;
 		
-		// update position
-		if (position.z > 0)
-			velocity.add(0, 0, -GRAVITY);
+		if (z > 0)
+			vz -= AIRBORNE_GRAVITY * deltaTime;
 		
-		velocity.scl(deltaTime);
-		position.add(velocity.x, velocity.y, velocity.z);		
-		if (position.z < 0) { // ball bounces on floor
-			velocity.z = -velocity.z;
-			position.z += velocity.z;
-			
-			velocity.z -= velocity.z / 4;
-			velocity.x -= velocity.x / 32;
-			velocity.y -= velocity.y / 32;
-		}		
-		velocity.scl(1/deltaTime);		
+		// update position
+		x += vx * deltaTime;
+		y += vy * deltaTime;
+		z += vz * deltaTime;
+		if (z < 0) { // ball bounces on floor
+			z -= vz * deltaTime;
+			vz = -vz * BOUNCE_RESTITUTION;
+			vx -= vx * GROUND_FRICTION * friction * deltaTime;
+			vy -= vy * GROUND_FRICTION * friction * deltaTime;
+			bounce = true;
+		}
+
+		s[X] = x;
+		s[Y] = y;
+		s[Z] = z;
+		s[VX] = vx;
+		s[VY] = vy;
+		s[VZ] = vz;
+		return bounce;
 	}
 	
 	/**
@@ -150,8 +160,6 @@ public class Ball {
 	 * @param angleDir
 	 */
 	public void applyForce(float speed, int angleDir) {
-		float angle[] = {0, 45, 90, 135, 180, 225, 270, 315 }; //!Reimp
-		
 		if (angleDir >= 8)
 		{
 			//velocity.x = 0.0f;
@@ -160,24 +168,32 @@ public class Ball {
 		}
 		//System.out.format("angle %d%n", angleDir);
 		
-		// convert degrees to radians
-		// libdgx rotation happens in a clockwise direction, but in mathematics it goes counterclockwise
-		// to overcome differences add 90 degrees
-		double radians = MathUtils.degRad * (90.0f - angle[angleDir]);
-		
 		float ballSpeed = speed;
 		
-		velocity.x = (float)(ballSpeed * Math.cos(radians));
-		velocity.y = (float)(ballSpeed * Math.sin(radians));
-		velocity.z = 80;
+		store.vx[BALL] = (float)(ballSpeed * KICK_COS[angleDir]);
+		store.vy[BALL] = (float)(ballSpeed * KICK_SIN[angleDir]);
+		store.vz[BALL] = 80;
+		trajectoryValid = false;
 	}
 	
 	/**
 	 * Get the ball's position
-	 * @return the ball's position
+	 * @return a copy of the ball's position, reused by each call
 	 */
 	public Vector3 getPosition() {
-		return position;
+		return position.set(store.x[BALL], store.y[BALL], store.z[BALL]);
+	}
+	
+	/**
+	 * Get the ball's position between the previous and the current simulation tick
+	 * @param alpha the interpolation factor, from 0 (previous tick) to 1 (current tick)
+	 * @param out the vector receiving the position
+	 * @return out
+	 */
+	public Vector3 getInterpolatedPosition(float alpha, Vector3 out) {
+		return out.set(store.previousX[BALL] + (store.x[BALL] - store.previousX[BALL]) * alpha,
+		               store.previousY[BALL] + (store.y[BALL] - store.previousY[BALL]) * alpha,
+		               store.previousZ[BALL] + (store.z[BALL] - store.previousZ[BALL]) * alpha);
 	}
 	
 	/**
@@ -185,15 +201,41 @@ public class Ball {
 	 * @param position
 	 */
 	public void setPosition(Vector3 position) {
-		this.position = position;
+		setPosition(position.x, position.y, position.z);
+	}
+	
+	/**
+	 * Set the ball's position
+	 * @param x
+	 * @param y
+	 * @param z
+	 */
+	public void setPosition(float x, float y, float z) {
+		store.x[BALL] = x;
+		store.y[BALL] = y;
+		store.z[BALL] = z;
+		trajectoryValid = false;
+	}
+	
+	/**
+	 * Move the ball without drawing it on its way, the previous tick position being reset too
+	 * @param x
+	 * @param y
+	 * @param z
+	 */
+	public void teleport(float x, float y, float z) {
+		setPosition(x, y, z);
+		store.previousX[BALL] = x;
+		store.previousY[BALL] = y;
+		store.previousZ[BALL] = z;
 	}
 	
 	/**
 	 * Get the ball's velocity
-	 * @return the ball's velocity
+	 * @return a copy of the ball's velocity, reused by each call
 	 */
 	public Vector3 getVelocity() {
-		return velocity;
+		return velocity.set(store.vx[BALL], store.vy[BALL], store.vz[BALL]);
 	}
 	
 	/**
@@ -201,20 +243,55 @@ public class Ball {
 	 * @param velocity
 	 */
 	public void setVelocity(Vector3 velocity) {
-		this.velocity = velocity;
+		setVelocity(velocity.x, velocity.y, velocity.z);
 	}
 	
-	public void trap(Player player) { //!Reimp move to player class
-		velocity = Vector3.Zero;
-		owner = player;
+	/**
+	 * Set the ball's velocity
+	 * @param x
+	 * @param y
+	 * @param z
+	 */
+	public void setVelocity(float x, float y, float z) {
+		store.vx[BALL] = x;
+		store.vy[BALL] = y;
+		store.vz[BALL] = z;
+		trajectoryValid = false;
+	}
+	
+	/**
+	 * Set the pitch friction coefficient applied while the ball touches the floor
+	 * @param friction the friction coefficient, 1 being the reference pitch
+	 */
+	public void setFriction(float friction) {
+		this.friction = friction;
+		trajectoryValid = false;
+	}
+
+	/**
+	 * Get the predicted flight of the ball from its current state, assuming nobody touches it.
+	 * The prediction is computed once after each kick, later calls only look it up.
+	 * @return the trajectory, reused by each call
+	 */
+	public BallTrajectory getTrajectory() {
+		if (!trajectoryValid) {
+			trajectory.compute(store.x[BALL], store.y[BALL], store.z[BALL],
+			                   store.vx[BALL], store.vy[BALL], store.vz[BALL], friction, tickDuration);
+			trajectoryValid = true;
+		}
+		return trajectory;
+	}
+
+	/**
+	 * Forget the predicted flight, after the ball state was changed directly in the store
+	 * (e.g. restored from a snapshot)
+	 */
+	public void resetTrajectory() {
+		trajectoryValid = false;
 	}
 	
-    public Texture getTexture() {
-    	return texture;
-    }
-    
-    public void dispose() {
-		shapeRenderer.dispose();
+	public void trap(Player player) { //!Reimp move to player class
+		setVelocity(0, 0, 0);
+		owner = player;
 	}
 }
-
@@ -0,0 +1,207 @@
+package com.senegas.kickoff.entities;
+
+import com.badlogic.gdx.math.Vector3;
+
+/**
+ * Predicted flight of a free ball, sampled once per simulation tick from a kick
+ * until the ball stops rolling.
+ * <p>
+ * The samples are produced by the same step as {@link Ball#update(float)}, so they
+ * match the simulation exactly as long as nobody touches the ball. The ball computes
+ * them once after each kick and then moves a cursor along them every tick, so all the
+ * queries below are O(1) (the bounce queries are O(1) amortized) and times are counted
+ * from the current tick.
+ */
+public class BallTrajectory {
+	/** Longest predicted flight in seconds, a kicked ball rolls for about 3 seconds */
+	public static final float MAX_DURATION = 6;
+	/** Upward speed after a bounce under which the ball is considered rolling (px/s) */
+	private static final float MIN_REBOUND_SPEED = 8;
+	/** Horizontal speed under which the ball is considered stopped (px/s) */
+	private static final float STOP_SPEED = 1;
+
+	private float[] x = new float[0];
+	private float[] y = new float[0];
+	private float[] z = new float[0];
+	/** Sample index right after each bounce */
+	private int[] bounces = new int[0];
+	private final float[] state = new float[6];
+
+	private float tickDuration;
+	/** Number of samples */
+	private int count;
+	private int bounceCount;
+	/** Sample of the current tick */
+	private int cursor;
+	/** First bounce after the cursor */
+	private int nextBounce;
+
+	/**
+	 * Predict the flight of a ball
+	 * @param x ball x-axis position
+	 * @param y ball y-axis position
+	 * @param z ball height
+	 * @param vx ball x-axis velocity
+	 * @param vy ball y-axis velocity
+	 * @param vz ball vertical velocity
+	 * @param friction the pitch friction coefficient
+	 * @param tickDuration the simulation tick duration in seconds
+	 */
+	void compute(float x, float y, float z, float vx, float vy, float vz, float friction, float tickDuration) {
+		int capacity = (int) Math.ceil(MAX_DURATION / tickDuration) + 1;
+		if (this.x.length != capacity) {
+			// only when the tick duration changes
+			this.x = new float[capacity];
+			this.y = new float[capacity];
+			this.z = new float[capacity];
+			this.bounces = new int[capacity];
+		}
+		this.tickDuration = tickDuration;
+
+		float[] s = state;
+		s[Ball.X] = x;
+		s[Ball.Y] = y;
+		s[Ball.Z] = z;
+		s[Ball.VX] = vx;
+		s[Ball.VY] = vy;
+		s[Ball.VZ] = vz;
+
+		bounceCount = 0;
+		count = 0;
+		store(s);
+		while (count < capacity && !isStopped(s)) {
+			boolean bounce = Ball.integrate(s, tickDuration, friction);
+			store(s);
+			if (bounce && s[Ball.VZ] > MIN_REBOUND_SPEED) {
+				bounces[bounceCount++] = count - 1;
+			}
+		}
+
+		cursor = 0;
+		nextBounce = 0;
+	}
+
+	private void store(float[] s) {
+		x[count] = s[Ball.X];
+		y[count] = s[Ball.Y];
+		z[count] = s[Ball.Z];
+		count++;
+	}
+
+	private static boolean isStopped(float[] s) {
+		return s[Ball.VX] * s[Ball.VX] + s[Ball.VY] * s[Ball.VY] < STOP_SPEED * STOP_SPEED
+				&& s[Ball.Z] < 1 && Math.abs(s[Ball.VZ]) < MIN_REBOUND_SPEED;
+	}
+
+	/**
+	 * Move to the next tick, called by the ball after each update
+	 */
+	void advance() {
+		if (cursor < count - 1) {
+			cursor++;
+		}
+		while (nextBounce < bounceCount && bounces[nextBounce] <= cursor) {
+			nextBounce++;
+		}
+	}
+
+	/**
+	 * Get the predicted ball position
+	 * @param time the time from now in seconds
+	 * @param out the vector receiving the position
+	 * @return out
+	 */
+	public Vector3 getPosition(float time, Vector3 out) {
+		float t = cursor + Math.max(time, 0) / tickDuration;
+		int i = (int) t;
+		if (i >= count - 1) {
+			return out.set(x[count - 1], y[count - 1], z[count - 1]);
+		}
+		float alpha = t - i;
+		return out.set(x[i] + (x[i + 1] - x[i]) * alpha,
+		               y[i] + (y[i + 1] - y[i]) * alpha,
+		               z[i] + (z[i + 1] - z[i]) * alpha);
+	}
+
+	/**
+	 * Get the predicted ball position at a future tick
+	 * @param ticks the number of ticks from now
+	 * @param out the vector receiving the position
+	 * @return out
+	 */
+	public Vector3 getPositionAtTick(int ticks, Vector3 out) {
+		int i = Math.min(cursor + Math.max(ticks, 0), count - 1);
+		return out.set(x[i], y[i], z[i]);
+	}
+
+	/**
+	 * Get the number of predicted ticks left, including the current one
+	 * @return the tick count
+	 */
+	public int getTickCount() {
+		return count - cursor;
+	}
+
+	/**
+	 * Get the number of bounces left
+	 * @return the bounce count
+	 */
+	public int getBounceCount() {
+		return bounceCount - nextBounce;
+	}
+
+	/**
+	 * Get the time of a coming bounce
+	 * @param n the bounce, 0 being the next one
+	 * @return the time from now in seconds
+	 */
+	public float getBounceTime(int n) {
+		return (bounces[nextBounce + n] - cursor) * tickDuration;
+	}
+
+	/**
+	 * Get the time the ball lands, i.e. its next bounce
+	 * @return the time from now in seconds, or -1 if the ball is rolling
+	 */
+	public float getLandingTime() {
+		return getBounceCount() > 0 ? getBounceTime(0) : -1;
+	}
+
+	/**
+	 * Get the point where the ball lands, i.e. its next bounce
+	 * @param out the vector receiving the landing point
+	 * @return true if the ball lands, false if it is rolling (out is left unchanged)
+	 */
+	public boolean getLandingPoint(Vector3 out) {
+		if (getBounceCount() == 0) return false;
+
+		int i = bounces[nextBounce];
+		out.set(x[i], y[i], z[i]);
+		return true;
+	}
+
+	/**
+	 * Get the time the ball stops, or the prediction ends
+	 * @return the time from now in seconds
+	 */
+	public float getRestTime() {
+		return (count - 1 - cursor) * tickDuration;
+	}
+
+	/**
+	 * Get the point where the ball stops, or where the prediction ends
+	 * @param out the vector receiving the point
+	 * @return out
+	 */
+	public Vector3 getRestPosition(Vector3 out) {
+		return out.set(x[count - 1], y[count - 1], z[count - 1]);
+	}
+
+	/**
+	 * Get the duration of a sample
+	 * @return the simulation tick duration in seconds
+	 */
+	public float getTickDuration() {
+		return tickDuration;
+	}
+}
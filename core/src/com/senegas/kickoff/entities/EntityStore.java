@@ -0,0 +1,190 @@
+package com.senegas.kickoff.entities;
+
+import com.senegas.kickoff.entities.Player.Direction;
+
+/**
+ * Per tick state of the players and the ball of a match, kept as one primitive
+ * array per field so the simulation loops walk contiguous memory.
+ * <p>
+ * Slots [0, PLAYER_COUNT) hold the players, home team first, and slot {@link #BALL}
+ * holds the ball. {@link Player} and {@link Ball} are thin views over one slot.
+ */
+public class EntityStore {
+	public static final int PLAYERS_PER_TEAM = 10;
+	public static final int PLAYER_COUNT = 2 * PLAYERS_PER_TEAM;
+	/** Slot of the ball */
+	public static final int BALL = PLAYER_COUNT;
+	public static final int SIZE = PLAYER_COUNT + 1;
+	/** Sizes of the flat buffers taken by {@link #save(float[], int[])} */
+	public static final int FLOAT_VALUES = 13 * SIZE;
+	public static final int INT_VALUES = 2 * SIZE;
+
+	/** Default player running speed (px/s) */
+	public static final float DEFAULT_SPEED = 200f;
+	/** Distance to the destination under which a player stops */
+	private static final float STOP_DISTANCE = 2;
+	/** Time between two running animation frames */
+	private static final float FRAME_TIME = 5 / DEFAULT_SPEED;
+	private static final int RUNNING_FRAMES[] = { 0, 3, 2, 1, 1, 2, 3, 4, 7, 6, 5, 5, 6, 7 };
+	/** Cosine of PI/8, the limit between a straight and a diagonal move */
+	private static final float DIRECTION_THRESHOLD = (float) Math.cos(Math.PI / 8);
+	/** Speed coefficients indexed by direction ordinal */
+	private static final float DIRECTION_X[] = { 0, 0.707f, 1f, 0.707f, 0, 0.707f, 1f, 0.707f, 0 };
+	private static final float DIRECTION_Y[] = { 1f, 0.707f, 0, 0.707f, 1f, 0.707f, 0, 0.707f, 0 };
+	private static final int NONE = Direction.NONE.ordinal();
+
+	public final float[] x = new float[SIZE];
+	public final float[] y = new float[SIZE];
+	public final float[] z = new float[SIZE];
+	public final float[] vx = new float[SIZE];
+	public final float[] vy = new float[SIZE];
+	public final float[] vz = new float[SIZE];
+	public final float[] previousX = new float[SIZE];
+	public final float[] previousY = new float[SIZE];
+	public final float[] previousZ = new float[SIZE];
+	public final float[] destX = new float[SIZE];
+	public final float[] destY = new float[SIZE];
+	public final float[] speed = new float[SIZE];
+	public final float[] animationTime = new float[SIZE];
+	public final int[] animationFrame = new int[SIZE];
+	/** Direction ordinal, see {@link Direction} */
+	public final int[] direction = new int[SIZE];
+
+	/** Fields copied by {@link #save(float[], int[])}, in order */
+	private final float[][] floatFields = { x, y, z, vx, vy, vz, previousX, previousY, previousZ,
+	                                        destX, destY, speed, animationTime };
+	private final int[][] intFields = { animationFrame, direction };
+
+	public EntityStore() {
+		for (int i = 0; i < SIZE; i++) {
+			speed[i] = DEFAULT_SPEED;
+			direction[i] = NONE;
+		}
+	}
+
+	/**
+	 * Move the players [from, to) to their destination and update their animation
+	 * @param from first player slot
+	 * @param to slot after the last player
+	 * @param deltaTime the tick duration in seconds
+	 */
+	public void updatePlayers(int from, int to, float deltaTime) {
+		for (int i = from; i < to; i++) {
+			previousX[i] = x[i];
+			previousY[i] = y[i];
+
+			moveToDestination(i);
+
+			int dir = direction[i];
+			if (dir != NONE) {
+				// update animation
+				animationTime[i] += deltaTime;
+				int frame = (int) (animationTime[i] / FRAME_TIME) % RUNNING_FRAMES.length;
+				animationFrame[i] = RUNNING_FRAMES[frame] + 8 * dir;
+			}
+
+			// update position
+			x[i] += vx[i] * DIRECTION_X[dir] * deltaTime;
+			y[i] += vy[i] * DIRECTION_Y[dir] * deltaTime;
+		}
+	}
+
+	/**
+	 * Set the velocity of a player towards its destination, restricted to the 8 directions
+	 * @param i the player slot
+	 */
+	public void moveToDestination(int i) {
+		float dx = destX[i] - x[i];
+		float dy = destY[i] - y[i];
+		float distance = (float) Math.sqrt(dx * dx + dy * dy);
+
+		if (distance <= STOP_DISTANCE) {
+			vx[i] = 0;
+			vy[i] = 0;
+		} else {
+			float nx = dx / distance;
+			float ny = dy / distance;
+			float s = speed[i];
+
+			if (nx > DIRECTION_THRESHOLD) {
+				vx[i] = s;
+				vy[i] = 0;
+			} else if (nx < -DIRECTION_THRESHOLD) {
+				vx[i] = -s;
+				vy[i] = 0;
+			} else if (ny > DIRECTION_THRESHOLD) {
+				vx[i] = 0;
+				vy[i] = s;
+			} else if (ny < -DIRECTION_THRESHOLD) {
+				vx[i] = 0;
+				vy[i] = -s;
+			} else {
+				vx[i] = nx > 0 ? s : -s;
+				vy[i] = ny > 0 ? s : -s;
+			}
+		}
+
+		updateDirection(i);
+	}
+
+	/**
+	 * Update the direction of an entity according to its velocity
+	 * @param i the slot
+	 */
+	public void updateDirection(int i) {
+		float dx = vx[i];
+		float dy = vy[i];
+		if (dy > 0) {
+			direction[i] = dx < 0 ? Direction.NORTH_WEST.ordinal() : (dx > 0 ? Direction.NORTH_EAST.ordinal() : Direction.NORTH.ordinal());
+		} else if (dy < 0) {
+			direction[i] = dx < 0 ? Direction.SOUTH_WEST.ordinal() : (dx > 0 ? Direction.SOUTH_EAST.ordinal() : Direction.SOUTH.ordinal());
+		} else if (dx < 0) {
+			direction[i] = Direction.WEST.ordinal();
+		} else if (dx > 0) {
+			direction[i] = Direction.EAST.ordinal();
+		} else {
+			direction[i] = NONE;
+		}
+	}
+
+	/**
+	 * Get the squared distance between an entity and a point on the ground
+	 * @param i the slot
+	 * @param px point x-axis position
+	 * @param py point y-axis position
+	 * @return the squared distance
+	 */
+	public float distanceSquared(int i, float px, float py) {
+		float dx = px - x[i];
+		float dy = py - y[i];
+		return dx * dx + dy * dy;
+	}
+
+	/**
+	 * Copy the state of all the slots into flat buffers, field after field
+	 * @param floats the buffer receiving the float fields, {@link #FLOAT_VALUES} long
+	 * @param ints the buffer receiving the int fields, {@link #INT_VALUES} long
+	 */
+	public void save(float[] floats, int[] ints) {
+		for (int f = 0; f < floatFields.length; f++) {
+			System.arraycopy(floatFields[f], 0, floats, f * SIZE, SIZE);
+		}
+		for (int f = 0; f < intFields.length; f++) {
+			System.arraycopy(intFields[f], 0, ints, f * SIZE, SIZE);
+		}
+	}
+
+	/**
+	 * Copy back the state of all the slots saved by {@link #save(float[], int[])}
+	 * @param floats the saved float fields
+	 * @param ints the saved int fields
+	 */
+	public void restore(float[] floats, int[] ints) {
+		for (int f = 0; f < floatFields.length; f++) {
+			System.arraycopy(floats, f * SIZE, floatFields[f], 0, SIZE);
+		}
+		for (int f = 0; f < intFields.length; f++) {
+			System.arraycopy(ints, f * SIZE, intFields[f], 0, SIZE);
+		}
+	}
+}
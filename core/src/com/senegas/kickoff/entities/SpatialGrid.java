@@ -0,0 +1,159 @@
+package com.senegas.kickoff.entities;
+
+import com.senegas.kickoff.pitches.Pitch;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid over the map ({@link Pitch#WIDTH} x {@link Pitch#HEIGHT}, global coordinates)
+ * indexing the players of an {@link EntityStore}, to find the players near a point
+ * or a segment without testing every player.
+ * <p>
+ * Each cell holds a singly linked list of player slots. {@link #update()} only moves
+ * the players whose cell changed since the previous call. Players off the map are
+ * kept in the nearest border cell.
+ */
+public class SpatialGrid {
+	/** Default cell size in pixels, a few player widths */
+	public static final float DEFAULT_CELL_SIZE = 32;
+	private static final int EMPTY = -1;
+
+	private final EntityStore store;
+	private final float cellSize;
+	private final int columns;
+	private final int rows;
+	/** First slot of each cell list */
+	private final int[] head;
+	/** Next slot in the same cell list, indexed by slot */
+	private final int[] next = new int[EntityStore.PLAYER_COUNT];
+	/** Current cell of each slot */
+	private final int[] cell = new int[EntityStore.PLAYER_COUNT];
+
+	/**
+	 * Constructor
+	 * @param store the store of the indexed players
+	 */
+	public SpatialGrid(EntityStore store) {
+		this(store, DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 * Constructor
+	 * @param store the store of the indexed players
+	 * @param cellSize the cell size in pixels
+	 */
+	public SpatialGrid(EntityStore store, float cellSize) {
+		if (cellSize <= 0) {
+			throw new IllegalArgumentException("cellSize must be positive: " + cellSize);
+		}
+		this.store = store;
+		this.cellSize = cellSize;
+		this.columns = (int) Math.ceil(Pitch.WIDTH / cellSize);
+		this.rows = (int) Math.ceil(Pitch.HEIGHT / cellSize);
+		this.head = new int[columns * rows];
+
+		Arrays.fill(head, EMPTY);
+		for (int i = 0; i < EntityStore.PLAYER_COUNT; i++) {
+			cell[i] = cellOf(store.x[i], store.y[i]);
+			insert(i, cell[i]);
+		}
+	}
+
+	/**
+	 * Move the players who changed cell since the last update
+	 */
+	public void update() {
+		for (int i = 0; i < EntityStore.PLAYER_COUNT; i++) {
+			int newCell = cellOf(store.x[i], store.y[i]);
+			if (newCell != cell[i]) {
+				remove(i, cell[i]);
+				insert(i, newCell);
+				cell[i] = newCell;
+			}
+		}
+	}
+
+	/**
+	 * Find the players within a radius of a point
+	 * @param x point x-axis position
+	 * @param y point y-axis position
+	 * @param radius the search radius
+	 * @param out receives the slots of the players found, must hold {@link EntityStore#PLAYER_COUNT} slots
+	 * @return the number of players found
+	 */
+	public int query(float x, float y, float radius, int[] out) {
+		return querySegment(x, y, x, y, radius, out);
+	}
+
+	/**
+	 * Find the players within a radius of a segment, e.g. the path of the ball during a tick
+	 * @param x0 segment start x-axis position
+	 * @param y0 segment start y-axis position
+	 * @param x1 segment end x-axis position
+	 * @param y1 segment end y-axis position
+	 * @param radius the search radius
+	 * @param out receives the slots of the players found, must hold {@link EntityStore#PLAYER_COUNT} slots
+	 * @return the number of players found
+	 */
+	public int querySegment(float x0, float y0, float x1, float y1, float radius, int[] out) {
+		int minColumn = column(Math.min(x0, x1) - radius);
+		int maxColumn = column(Math.max(x0, x1) + radius);
+		int minRow = row(Math.min(y0, y1) - radius);
+		int maxRow = row(Math.max(y0, y1) + radius);
+
+		float dx = x1 - x0;
+		float dy = y1 - y0;
+		float lengthSquared = dx * dx + dy * dy;
+		float radiusSquared = radius * radius;
+
+		int count = 0;
+		for (int r = minRow; r <= maxRow; r++) {
+			for (int c = minColumn; c <= maxColumn; c++) {
+				for (int i = head[r * columns + c]; i != EMPTY; i = next[i]) {
+					// closest point of the segment to the player
+					float t = 0;
+					if (lengthSquared > 0) {
+						t = ((store.x[i] - x0) * dx + (store.y[i] - y0) * dy) / lengthSquared;
+						t = t < 0 ? 0 : (t > 1 ? 1 : t);
+					}
+					if (store.distanceSquared(i, x0 + t * dx, y0 + t * dy) <= radiusSquared) {
+						out[count++] = i;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	private int cellOf(float x, float y) {
+		return row(y) * columns + column(x);
+	}
+
+	private int column(float x) {
+		int column = (int) Math.floor(x / cellSize);
+		return column < 0 ? 0 : (column >= columns ? columns - 1 : column);
+	}
+
+	private int row(float y) {
+		int row = (int) Math.floor(y / cellSize);
+		return row < 0 ? 0 : (row >= rows ? rows - 1 : row);
+	}
+
+	private void insert(int i, int c) {
+		next[i] = head[c];
+		head[c] = i;
+	}
+
+	private void remove(int i, int c) {
+		if (head[c] == i) {
+			head[c] = next[i];
+			return;
+		}
+		for (int j = head[c]; j != EMPTY; j = next[j]) {
+			if (next[j] == i) {
+				next[j] = next[i];
+				return;
+			}
+		}
+	}
+}
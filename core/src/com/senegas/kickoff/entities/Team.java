@@ -1,13 +1,9 @@
 package com.senegas.kickoff.entities;
 
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.Disposable;
 import com.senegas.kickoff.entities.Player.Direction;
 import com.senegas.kickoff.pitches.Pitch;
-import com.senegas.kickoff.screens.Match;
 import com.senegas.kickoff.tactics.Tactic;
 import com.senegas.kickoff.tactics.Tactic424;
 
@@ -16,23 +12,38 @@ import com.senegas.kickoff.tactics.Tactic424;
  * @author Sébastien Sénégas
  *
  */
-public class Team  implements Disposable {
+public class Team {
     private Array<Player> players = new Array<Player>();
-    private Tactic tactic = new Tactic424(this);
-    private Match match;
+    private Tactic tactic;
     private String name;
     private Direction direction;
-    private Texture texture;
+    private EntityStore store;
+    private int firstIndex;
     /**
 	 * Constructor
-	 * @param match the match
+	 * @param store the entity store holding the players state
+	 * @param firstIndex the slot of the team's first player in the store
 	 * @param name the team name
+	 * @param direction the team's direction
 	 */
-	public Team(Match match, String name, Direction direction) {
-		this.match = match;
+	public Team(EntityStore store, int firstIndex, String name, Direction direction) {
+		this(store, firstIndex, name, direction, Tactic424.FILE_NAME);
+	}
+
+	/**
+	 * Constructor
+	 * @param store the entity store holding the players state
+	 * @param firstIndex the slot of the team's first player in the store
+	 * @param name the team name
+	 * @param direction the team's direction
+	 * @param tacticFileName the tactic file, e.g. tactics/4-3-3.xml
+	 */
+	public Team(EntityStore store, int firstIndex, String name, Direction direction, String tacticFileName) {
+		this.store = store;
+		this.firstIndex = firstIndex;
 		this.name = name;
 		this.direction = direction;
-        this.texture = direction == Direction.NORTH ? new Texture("entities/style1a.png") : new Texture("entities/style1b.png");
+		this.tactic = new Tactic(this, tacticFileName);
 
 		createPlayers();
 		setupIntroduction();
@@ -45,8 +56,8 @@ public class Team  implements Disposable {
         Vector3 playerPosition = new Vector3(0,
                 (int) (Pitch.PITCH_HEIGHT_IN_PX / 2 + Pitch.OUTER_TOP_EDGE_Y + 16 + (direction == Direction.NORTH ? -16: 16)),
                 0);
-        for (int i = 0; i < 10; i++) {
-			this.players.add(new Player((int)playerPosition.x, (int)playerPosition.y, texture));
+        for (int i = 0; i < EntityStore.PLAYERS_PER_TEAM; i++) {
+			this.players.add(new Player(store, firstIndex + i, (int)playerPosition.x, (int)playerPosition.y));
 			playerPosition.add(-16, 0, 0);
 		}
 	}
@@ -57,9 +68,7 @@ public class Team  implements Disposable {
 	 */
 	public void update(float deltaTime) {
 		//this.tactic.update(this.match.getBall());
-		for (Player player : this.players) {
-			player.update(deltaTime);
-		}
+		this.store.updatePlayers(firstIndex, firstIndex + EntityStore.PLAYERS_PER_TEAM, deltaTime);
 	}
 
 	public boolean isReady() {
@@ -71,37 +80,16 @@ public class Team  implements Disposable {
 	}
 
     public void setupIntroduction() {
-        Vector3 playerPosition = new Vector3(0,
-                                             (int) (Pitch.PITCH_HEIGHT_IN_PX / 2 + Pitch.OUTER_TOP_EDGE_Y + 16),
-                                             0);
-        playerPosition.add(352, direction == Direction.NORTH ? -16: 16, 0);
+        float x = 352;
+        float y = (int) (Pitch.PITCH_HEIGHT_IN_PX / 2 + Pitch.OUTER_TOP_EDGE_Y + 16) + (direction == Direction.NORTH ? -16: 16);
 
         for (Player player : this.players) {
-            player.setDestination(playerPosition);
-            playerPosition.sub(16, 0, 0);
+            player.setDestination(x, y);
+            x -= 16;
         }
         //setControlState(Player::None);
     }
 
-	/**
-	 * Draw the team's players
-	 * @param batch
-	 */
-	public void draw(Batch batch) {
-        for (Player player : this.players) {
-            player.draw(batch);
-        }
-	}
-
-	public void showDebug() {
-        if (direction == Direction.NORTH) {
-            for (Player player : this.players) {
-                player.showBounds(match.getCamera());
-            }
-            this.tactic.showRegionAndExpectedPlayerLocation(match.getCamera(), match.getBall());
-        }
-    }
-	
 	/**
 	 * Get the players
 	 * @return
@@ -129,13 +117,21 @@ public class Team  implements Disposable {
 	public Direction getDirection() {
 		return this.direction;
 	}
-	
-	@Override
-	public void dispose() {
-		for (Player player : this.players) {
-			player.dispose();
-			player.getTexture().dispose();
-		}
-		this.tactic.dispose();
+
+	/**
+	 * Get the entity store holding the players state
+	 * @return the store
+	 */
+	public EntityStore getStore() {
+		return this.store;
+	}
+
+	/**
+	 * Get the slot of the team's first player, the players use the
+	 * {@link EntityStore#PLAYERS_PER_TEAM} consecutive slots
+	 * @return the slot index
+	 */
+	public int getFirstIndex() {
+		return this.firstIndex;
 	}
-}
+}
\ No newline at end of file
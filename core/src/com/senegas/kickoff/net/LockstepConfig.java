@@ -0,0 +1,87 @@
+package com.senegas.kickoff.net;
+
+import com.senegas.kickoff.pitches.Pitch;
+import com.senegas.kickoff.simulation.Controls;
+import com.senegas.kickoff.simulation.MatchSimulation;
+import com.senegas.kickoff.tactics.Tactic424;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/**
+ * Settings of a networked match, both peers must agree on the seed and on the rollback
+ */
+public class LockstepConfig {
+	private final int localSide;
+	private final int localPort;
+	private final InetSocketAddress remote;
+	private final int inputDelay;
+	private final long seed;
+	private final boolean rollback;
+
+	/**
+	 * Constructor
+	 * @param localSide the side played by this peer, {@link Controls#HOME} or {@link Controls#AWAY}
+	 * @param localPort the UDP port this peer receives on
+	 * @param remote the address of the other peer
+	 * @param inputDelay the number of ticks between sampling the local controls and playing them
+	 * @param seed the match seed, the same for both peers
+	 */
+	public LockstepConfig(int localSide, int localPort, InetSocketAddress remote, int inputDelay, long seed) {
+		this(localSide, localPort, remote, inputDelay, seed, false);
+	}
+
+	/**
+	 * Constructor
+	 * @param localSide the side played by this peer, {@link Controls#HOME} or {@link Controls#AWAY}
+	 * @param localPort the UDP port this peer receives on
+	 * @param remote the address of the other peer
+	 * @param inputDelay the number of ticks between sampling the local controls and playing them
+	 * @param seed the match seed, the same for both peers
+	 * @param rollback true to predict the controls of the other peer instead of waiting for them,
+	 *                 see {@link RollbackSession}
+	 */
+	public LockstepConfig(int localSide, int localPort, InetSocketAddress remote, int inputDelay, long seed, boolean rollback) {
+		this.localSide = localSide;
+		this.localPort = localPort;
+		this.remote = remote;
+		this.inputDelay = inputDelay;
+		this.seed = seed;
+		this.rollback = rollback;
+	}
+
+	/**
+	 * Open the session exchanging the controls with the other peer
+	 * @return the session
+	 * @throws IOException if the local port cannot be bound
+	 */
+	public LockstepSession open() throws IOException {
+		return new LockstepSession(localSide, localPort, remote, inputDelay);
+	}
+
+	/**
+	 * Create the simulation played by both peers
+	 * @param pitchType the pitch type
+	 * @return the simulation
+	 */
+	public MatchSimulation createSimulation(Pitch.Type pitchType) {
+		return new MatchSimulation(pitchType, Tactic424.FILE_NAME, Tactic424.FILE_NAME,
+		                           MatchSimulation.DEFAULT_TICKS_PER_SECOND, seed);
+	}
+
+	public int getLocalSide() {
+		return localSide;
+	}
+
+	public int getInputDelay() {
+		return inputDelay;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public boolean isRollback() {
+		return rollback;
+	}
+}
@@ -0,0 +1,215 @@
+package com.senegas.kickoff.net;
+
+import com.senegas.kickoff.simulation.Controls;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Exchanges the per tick controls of a two peers match over UDP, see {@link Controls}
+ * <p>
+ * Each peer runs the whole simulation and only sends its own controls, so the traffic does not
+ * depend on the number of entities. A tick is stepped once the controls of both sides are known
+ * for it ({@link #isReady(long)}). The local controls sampled at a tick are played
+ * {@link #getInputDelay()} ticks later, which gives them that long to reach the other peer
+ * before it needs them.
+ * <p>
+ * Every packet carries all the local controls the other peer has not acknowledged yet along with
+ * the acknowledgement of its own, so a lost packet is made up for by the next one.
+ * <pre>
+ * int     magic ('KOLS')
+ * int     acknowledgement, the next tick expected from the other peer
+ * int     tick of the first controls
+ * byte    controls count
+ * byte[]  controls
+ * </pre>
+ */
+public class LockstepSession implements Closeable {
+	public static final int DEFAULT_INPUT_DELAY = 3;
+
+	private static final int MAGIC = 0x4B4F4C53; // 'KOLS'
+	/** Ticks of controls kept, sent but unacknowledged ones included, a power of two */
+	private static final int WINDOW = 128;
+	private static final int MAX_INPUT_DELAY = WINDOW / 4;
+	/** Controls per packet */
+	private static final int MAX_CONTROLS = 64;
+	private static final int HEADER = 13;
+
+	private final DatagramChannel channel;
+	private final SocketAddress remote;
+	private final int localSide;
+	private final int inputDelay;
+	private final ByteBuffer packet = ByteBuffer.allocate(HEADER + MAX_CONTROLS);
+
+	private final byte[] localControls = new byte[WINDOW];
+	private final byte[] remoteControls = new byte[WINDOW];
+	/** Next local tick without controls, the controls of all the previous ones are known */
+	private long localTick;
+	/** Next remote tick without controls */
+	private long remoteTick;
+	/** Next local tick the other peer is waiting for */
+	private long acknowledgedTick;
+	/** True when the other peer does not know the last remote tick received yet */
+	private boolean acknowledge;
+
+	/**
+	 * Constructor, opens the socket
+	 * @param localSide the side played by this peer, {@link Controls#HOME} or {@link Controls#AWAY}
+	 * @param localPort the UDP port this peer receives on
+	 * @param remote the address of the other peer
+	 * @param inputDelay the number of ticks between sampling the local controls and playing them
+	 * @throws IOException if the port cannot be bound
+	 */
+	public LockstepSession(int localSide, int localPort, InetSocketAddress remote, int inputDelay) throws IOException {
+		if (inputDelay < 0 || inputDelay > MAX_INPUT_DELAY) {
+			throw new IllegalArgumentException("inputDelay must be between 0 and " + MAX_INPUT_DELAY + ": " + inputDelay);
+		}
+		this.localSide = localSide;
+		this.remote = remote;
+		this.inputDelay = inputDelay;
+
+		// nobody controls the first ticks, before the first controls are played
+		localTick = inputDelay;
+		remoteTick = inputDelay;
+		acknowledgedTick = inputDelay;
+
+		channel = DatagramChannel.open();
+		channel.configureBlocking(false);
+		channel.socket().bind(new InetSocketAddress(localPort));
+	}
+
+	/**
+	 * Set the local controls sampled at a tick, played at tick + {@link #getInputDelay()}.
+	 * Nothing happens when they are already set, and no controls are set beyond the window
+	 * of unacknowledged ticks, the simulation then waits until the other peer catches up.
+	 * @param tick the tick about to be simulated
+	 * @param controls the local controls, see {@link Controls}
+	 */
+	public void submit(long tick, int controls) {
+		long target = tick + inputDelay;
+		while (localTick <= target && localTick - acknowledgedTick < WINDOW) {
+			localControls[(int) localTick & (WINDOW - 1)] = (byte) (controls & Controls.MASK);
+			localTick++;
+		}
+	}
+
+	/**
+	 * Check whether the controls of both sides are known for a tick
+	 * @param tick the tick
+	 * @return true if the tick can be simulated
+	 */
+	public boolean isReady(long tick) {
+		return tick < localTick && tick < remoteTick;
+	}
+
+	/**
+	 * Get the number of ticks the controls of a side are known for, from the first tick
+	 * @param side {@link Controls#HOME} or {@link Controls#AWAY}
+	 * @return the first tick without controls for the side
+	 */
+	public long getKnownTicks(int side) {
+		return side == localSide ? localTick : remoteTick;
+	}
+
+	/**
+	 * Get the controls of a side for a tick, see {@link #isReady(long)}
+	 * @param tick the tick
+	 * @param side {@link Controls#HOME} or {@link Controls#AWAY}
+	 * @return the controls, 0 for the ticks before the input delay
+	 */
+	public int getControls(long tick, int side) {
+		if (tick < inputDelay) return 0;
+
+		byte[] controls = side == localSide ? localControls : remoteControls;
+		return controls[(int) tick & (WINDOW - 1)];
+	}
+
+	/**
+	 * Read the packets received from the other peer, without waiting
+	 * @throws IOException
+	 */
+	public void receive() throws IOException {
+		while (true) {
+			packet.clear();
+			SocketAddress sender;
+			try {
+				sender = channel.receive(packet);
+			} catch (PortUnreachableException e) {
+				continue; // the other peer is not listening yet
+			}
+			if (sender == null) return;
+			if (!sender.equals(remote)) continue;
+
+			packet.flip();
+			if (packet.remaining() < HEADER || packet.getInt() != MAGIC) continue;
+
+			long acknowledgement = packet.getInt();
+			long first = packet.getInt();
+			int count = packet.get() & 0xFF;
+			if (acknowledgement > acknowledgedTick && acknowledgement <= localTick) {
+				acknowledgedTick = acknowledgement;
+			}
+			for (long tick = first; tick < first + count && packet.hasRemaining(); tick++) {
+				byte controls = packet.get();
+				if (tick == remoteTick) {
+					remoteControls[(int) tick & (WINDOW - 1)] = controls;
+					remoteTick++;
+					acknowledge = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Send the unacknowledged local controls, or the acknowledgement alone when they are all
+	 * acknowledged. Called every frame, including while waiting for the other peer, so the
+	 * controls lost on the way are sent again.
+	 * @throws IOException
+	 */
+	public void send() throws IOException {
+		int count = (int) Math.min(localTick - acknowledgedTick, MAX_CONTROLS);
+		if (count == 0 && !acknowledge) return;
+
+		packet.clear();
+		packet.putInt(MAGIC);
+		packet.putInt((int) remoteTick);
+		packet.putInt((int) acknowledgedTick);
+		packet.put((byte) count);
+		for (long tick = acknowledgedTick; tick < acknowledgedTick + count; tick++) {
+			packet.put(localControls[(int) tick & (WINDOW - 1)]);
+		}
+		packet.flip();
+		try {
+			channel.send(packet, remote);
+		} catch (PortUnreachableException e) {
+			// sent again with the next packet
+		}
+		acknowledge = false;
+	}
+
+	/**
+	 * Get the side played by this peer
+	 * @return {@link Controls#HOME} or {@link Controls#AWAY}
+	 */
+	public int getLocalSide() {
+		return localSide;
+	}
+
+	/**
+	 * Get the number of ticks between sampling the local controls and playing them
+	 * @return the input delay in ticks
+	 */
+	public int getInputDelay() {
+		return inputDelay;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,194 @@
+package com.senegas.kickoff.net;
+
+import com.senegas.kickoff.replay.Recording;
+import com.senegas.kickoff.simulation.Controls;
+import com.senegas.kickoff.simulation.MatchSimulation;
+import com.senegas.kickoff.simulation.MatchSnapshot;
+import com.senegas.kickoff.telemetry.TelemetryExporter;
+
+/**
+ * Steps a networked match without waiting for the controls of the other peer, rolling back
+ * when they turn out different from the ones predicted
+ * <p>
+ * The controls are exchanged by a {@link LockstepSession}. A tick whose remote controls have
+ * not arrived yet is stepped with the last remote controls known, after saving a snapshot of
+ * the match. When the actual controls arrive and differ from the prediction, the match is
+ * restored to the snapshot of the first mispredicted tick and stepped again up to the present,
+ * all within the frame (see {@link #synchronize()}). The simulation runs at most
+ * {@link #MAX_PREDICTION} ticks ahead of the remote controls, then waits like in lockstep.
+ * <p>
+ * The state of the match after each tick is captured into a ring of frames and positions,
+ * overwritten when the tick is stepped again, and handed to the {@link ConfirmedTickListener}
+ * once the tick is confirmed, so the recordings and the telemetry only hold ticks that actually
+ * happened, with the same precision as without rollback.
+ */
+public class RollbackSession {
+	/** Input delay of the rollback matches, the prediction hides the rest of the latency */
+	public static final int DEFAULT_INPUT_DELAY = 1;
+	/** Ticks stepped ahead of the remote controls, a power of two */
+	public static final int MAX_PREDICTION = 8;
+
+	/**
+	 * Receives the ticks once their controls are confirmed, in order
+	 */
+	public interface ConfirmedTickListener {
+		/**
+		 * Called once per confirmed tick
+		 * @param tick the tick of the match once stepped, see {@link MatchSimulation#getTick()}
+		 * @param frame the state after the step, see {@link Recording#capture(MatchSimulation, int[])},
+		 *              only valid during the call
+		 * @param positions the exact positions after the step,
+		 *                  see {@link TelemetryExporter#capture(MatchSimulation, float[])}, only valid during the call
+		 */
+		void confirmed(long tick, int[] frame, float[] positions);
+	}
+
+	private final LockstepSession session;
+	private final MatchSimulation simulation;
+	private final int localSide;
+	private final int remoteSide;
+	/** Snapshots of the match before each predicted tick, indexed by tick */
+	private final MatchSnapshot[] snapshots = new MatchSnapshot[MAX_PREDICTION];
+	/** Remote controls each predicted tick was stepped with, indexed by tick */
+	private final int[] predictedControls = new int[MAX_PREDICTION];
+	/** State of the match after each tick not confirmed yet, indexed by tick */
+	private final int[][] frames = new int[MAX_PREDICTION][Recording.FIELDS];
+	private final float[][] positions = new float[MAX_PREDICTION][TelemetryExporter.FLOAT_COLUMNS];
+	private ConfirmedTickListener listener;
+	/** First tick stepped with predicted controls, the previous ones are final */
+	private long confirmedTick;
+	private int rollbacks;
+	private long rolledBackTicks;
+
+	/**
+	 * Constructor
+	 * @param session the session exchanging the controls with the other peer
+	 * @param simulation the match, stepped only through this session from now on
+	 */
+	public RollbackSession(LockstepSession session, MatchSimulation simulation) {
+		this.session = session;
+		this.simulation = simulation;
+		this.localSide = session.getLocalSide();
+		this.remoteSide = localSide == Controls.HOME ? Controls.AWAY : Controls.HOME;
+		this.confirmedTick = simulation.getTick();
+		for (int i = 0; i < MAX_PREDICTION; i++) {
+			snapshots[i] = new MatchSnapshot();
+		}
+	}
+
+	/**
+	 * Check the predictions against the remote controls received since the last call and
+	 * roll back to the first mispredicted tick if any. To be called after
+	 * {@link LockstepSession#receive()}.
+	 * @return true if the match was rolled back and stepped again
+	 */
+	public boolean synchronize() {
+		long end = Math.min(session.getKnownTicks(remoteSide), simulation.getTick());
+		for (long tick = confirmedTick; tick < end; tick++) {
+			if (session.getControls(tick, remoteSide) != predictedControls[slot(tick)]) {
+				rollback(tick);
+				return true;
+			}
+		}
+		confirm(end);
+		return false;
+	}
+
+	/**
+	 * Step the match by one tick, predicting the remote controls if needed
+	 * @param controls the local controls sampled for this tick, see {@link Controls}
+	 * @return false if the tick waits for the controls of the other peer, the prediction
+	 *         being too far ahead already
+	 */
+	public boolean advance(int controls) {
+		long tick = simulation.getTick();
+		session.submit(tick, controls);
+		if (tick >= session.getKnownTicks(localSide) || tick - confirmedTick >= MAX_PREDICTION) return false;
+
+		stepTick(tick);
+		return true;
+	}
+
+	/**
+	 * Restore the match to a mispredicted tick and step it again up to the present
+	 * @param tick the first mispredicted tick
+	 */
+	private void rollback(long tick) {
+		long present = simulation.getTick();
+		confirm(tick);
+		simulation.restore(snapshots[slot(tick)]);
+		while (simulation.getTick() < present) {
+			stepTick(simulation.getTick());
+		}
+		rollbacks++;
+		rolledBackTicks += present - tick;
+	}
+
+	/**
+	 * Step a tick with the known controls, or the predicted ones after saving a snapshot
+	 * @param tick the current tick of the match
+	 */
+	private void stepTick(long tick) {
+		int remoteControls;
+		if (tick < session.getKnownTicks(remoteSide)) {
+			remoteControls = session.getControls(tick, remoteSide);
+		} else {
+			// the other peer is assumed to hold the same controls
+			simulation.save(snapshots[slot(tick)]);
+			remoteControls = session.getControls(session.getKnownTicks(remoteSide) - 1, remoteSide);
+			predictedControls[slot(tick)] = remoteControls;
+		}
+
+		int localControls = session.getControls(tick, localSide);
+		if (localSide == Controls.HOME) {
+			simulation.step(localControls, remoteControls);
+		} else {
+			simulation.step(remoteControls, localControls);
+		}
+
+		Recording.capture(simulation, frames[slot(tick)]);
+		TelemetryExporter.capture(simulation, positions[slot(tick)]);
+		if (tick < session.getKnownTicks(remoteSide)) confirm(tick + 1);
+	}
+
+	/**
+	 * Confirm the ticks before a tick, handing the newly confirmed ones to the listener
+	 * @param tick the first tick still predicted
+	 */
+	private void confirm(long tick) {
+		for (; confirmedTick < tick; confirmedTick++) {
+			if (listener != null) {
+				int slot = slot(confirmedTick);
+				listener.confirmed(confirmedTick + 1, frames[slot], positions[slot]);
+			}
+		}
+	}
+
+	/**
+	 * Set the listener of the confirmed ticks
+	 * @param listener the listener, null for none
+	 */
+	public void setConfirmedTickListener(ConfirmedTickListener listener) {
+		this.listener = listener;
+	}
+
+	private static int slot(long tick) {
+		return (int) tick & (MAX_PREDICTION - 1);
+	}
+
+	/**
+	 * Get the number of rollbacks so far
+	 * @return the number of mispredictions corrected
+	 */
+	public int getRollbacks() {
+		return rollbacks;
+	}
+
+	/**
+	 * Get the number of ticks stepped again by the rollbacks so far
+	 * @return the number of ticks
+	 */
+	public long getRolledBackTicks() {
+		return rolledBackTicks;
+	}
+}
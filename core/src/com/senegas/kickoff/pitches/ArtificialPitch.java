@@ -3,7 +3,7 @@ package com.senegas.kickoff.pitches;
 public class ArtificialPitch extends Pitch {
 
 	public ArtificialPitch() {
-		super("pitches/synthetic.tmx", 0.975f );
+		super("pitches/synthetic.tmx", Type.ARTIFICIAL.getFriction());
 	}
 
 }
@@ -3,7 +3,7 @@ package com.senegas.kickoff.pitches;
 public class ClassicPitch extends Pitch {
 
 	public ClassicPitch() {
-		super("pitches/classic.tmx", 0.975f );
+		super("pitches/classic.tmx", Type.CLASSIC.getFriction());
 	}
 
 }
@@ -1,21 +1,31 @@
 package com.senegas.kickoff.pitches;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.maps.tiled.TiledMap;
-import com.badlogic.gdx.maps.tiled.TmxMapLoader;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
-import com.badlogic.gdx.utils.Disposable;
 
 /**
  * base class for Pitch
  * @author Sébastien Sénégas
  *
  */
-public abstract class Pitch implements Disposable, FootballDimensions {
+public abstract class Pitch implements FootballDimensions {
 	
 	public enum Type {
-		CLASSIC, WET, SOGGY, ARTIFICIAL, PLAYERMANAGER
+		CLASSIC(0.975f), WET(0.775f), SOGGY(1.125f), ARTIFICIAL(0.975f), PLAYERMANAGER(0.975f);
+
+		private float friction;
+
+		Type(float friction) {
+			this.friction = friction;
+		}
+
+		/**
+		 * Get the friction coefficient of this kind of pitch
+		 * @return float
+		 */
+		public float getFriction() {
+			return friction;
+		}
 	}
 	
 	public final static int MAP_WIDTH_IN_TILE = 80;
@@ -25,26 +35,25 @@ public abstract class Pitch implements Disposable, FootballDimensions {
 	public static final int HEIGHT = MAP_HEIGHT_IN_TILE * TILE_HEIGHT_IN_PIXEL;
 	public static final int WIDTH = MAP_WIDTH_IN_TILE * TILE_WIDTH_IN_PIXEL;
 	
-	private TiledMap tiledMap;
+	private String fileName;
 	private float friction;
 	
 	/**
 	 * Constructor
-	 * @param fileName the tile map file name
+	 * @param fileName the tile map file name, loaded through the asset manager
 	 * @param friction the friction coefficient
 	 */
 	public Pitch(String fileName, float friction) {
-		Gdx.app.log("Pitch", "Load tile map " + fileName);
-		tiledMap = new TmxMapLoader().load(fileName);
+		this.fileName = fileName;
 		this.friction = friction;
 	}
 	
 	/**
-	 * Get the tiled map
-	 * @return TiledMap
+	 * Get the tile map file name
+	 * @return String
 	 */
-	public TiledMap getTiledMap() {
-		return tiledMap;
+	public String getFileName() {
+		return fileName;
 	}
 	
 	/**
@@ -56,11 +65,6 @@ public abstract class Pitch implements Disposable, FootballDimensions {
 		return friction;
 	}
 	
-	@Override
-	public void dispose() {
-		tiledMap.dispose();		
-	}
-
 	static public Vector2 getCenterSpot()
 	{
 		return new Vector2((int) (Pitch.PITCH_WIDTH_IN_PX / 2 + Pitch.OUTER_TOP_EDGE_X),
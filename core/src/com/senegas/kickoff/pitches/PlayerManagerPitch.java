@@ -3,7 +3,7 @@ package com.senegas.kickoff.pitches;
 public class PlayerManagerPitch extends Pitch {
 
 	public PlayerManagerPitch() {
-		super("pitches/playermanager.tmx", 0.975f );
+		super("pitches/playermanager.tmx", Type.PLAYERMANAGER.getFriction());
 	}
 
 }
@@ -3,30 +3,61 @@ package com.senegas.kickoff.pitches;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Disposable;
 import com.senegas.kickoff.entities.Player;
-import com.senegas.kickoff.screens.Match;
+import com.senegas.kickoff.simulation.MatchSimulation;
 
 /**
  * Scanner
+ * <p>
+ * The pitch lines are baked in a texture for the current zoom factor, the players and the
+ * ball are drawn over it at {@link #getUpdateRate()} in a second texture, and only that
+ * texture is drawn every frame.
  * @author Sébastien Sénégas
  *
  */
-public class Scanner implements FootballDimensions {
+public class Scanner implements FootballDimensions, Disposable {
 	private int zoomFactor;
 	private boolean isVisible;
 	private static final int[] ZOOM = {112, 92, 78, 230, 144};
+	/** Default number of scanner updates per second */
+	public static final float DEFAULT_UPDATE_RATE = 15;
+	/** Margin around the pitch in the scanner textures, so the border and the dots are not clipped */
+	private static final int MARGIN = 6;
+	private static final Color BACKGROUND_COLOR = new Color(0x3f3f3f1f);
+	private static final Color LINE_COLOR = new Color(0x1f1f1f3f);
+	private static final Color BALL_COLOR = new Color(1.0f, 1.0f, 1.0f, 0.6f);
+	private static final Color HOME_COLOR = new Color(1.0f, 0, 0, 0.6f);
+	private static final Color AWAY_COLOR = new Color(0, 0, 1.0f, 0.6f);
 	private boolean defaultMode;
 	private Vector2 origin;
-	private Match match;
+	private MatchSimulation match;
+	
+	private final ShapeRenderer shapeRenderer = new ShapeRenderer();
+	private final SpriteBatch batch = new SpriteBatch();
+	/** Pitch lines for the current zoom factor */
+	private FrameBuffer linesLayer;
+	private TextureRegion lines;
+	/** Pitch lines, players and ball, the texture drawn every frame */
+	private FrameBuffer scannerLayer;
+	private TextureRegion scanner;
+	/** Zoom factor the layers were built for, -1 if none */
+	private int layersZoomFactor = -1;
+	private float updateRate = DEFAULT_UPDATE_RATE;
+	private float sinceUpdate;
 
 	/**
 	 * Constructor
-	 * @param m the match
+	 * @param m the match, played or replayed
 	 */
-	public Scanner(Match m) {
+	public Scanner(MatchSimulation m) {
 		this.match = m;
 		this.isVisible = true;
 		this.zoomFactor = 3;
@@ -35,126 +66,201 @@ public class Scanner implements FootballDimensions {
 	}
 	
 	/**
-	 * Draw the scanner
+	 * Draw the scanner, updating the players and ball positions when it is time to
+	 * @param deltaTime the time elapsed since the last frame in seconds
 	 */
-	public void draw() {
-		//batch.end();
-		
+	public void draw(float deltaTime) {
 		float ratio = (float) (ZOOM[zoomFactor] / PITCH_WIDTH_IN_PX);
 		//Gdx.app.log("Scanner", "graphics.getHeight " + Gdx.graphics.getHeight());
 		this.origin.y = Gdx.graphics.getHeight() - 26 - (float)PITCH_HEIGHT_IN_PX * ratio;
 		
-		Gdx.gl.glEnable(GL20.GL_BLEND);
-		Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
-		//shapeRenderer.setProjectionMatrix(match.camera.projection);
-		match.shapeRenderer.begin(ShapeType.Filled);
-		match.shapeRenderer.setColor(new Color(0x3f3f3f1f));
+		if (layersZoomFactor != zoomFactor) {
+			buildLayers(ratio);
+			updateScanner(ratio);
+		} else {
+			sinceUpdate += deltaTime;
+			if (sinceUpdate >= 1 / updateRate) {
+				updateScanner(ratio);
+			}
+		}
+		
+		batch.getProjectionMatrix().setToOrtho2D(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+		drawLayer(scanner, this.origin.x - MARGIN, this.origin.y - MARGIN);
+	}
+	
+	/**
+	 * (Re)create the layers for a zoom factor and bake the pitch lines
+	 * @param ratio the scanner size over the pitch size
+	 */
+	private void buildLayers(float ratio) {
+		disposeLayers();
+		
+		int width = (int) Math.ceil(PITCH_WIDTH_IN_PX * ratio) + 2 * MARGIN;
+		int height = (int) Math.ceil(PITCH_HEIGHT_IN_PX * ratio) + 2 * MARGIN;
+		linesLayer = new FrameBuffer(Pixmap.Format.RGBA8888, width, height, false);
+		scannerLayer = new FrameBuffer(Pixmap.Format.RGBA8888, width, height, false);
+		lines = flipped(linesLayer);
+		scanner = flipped(scannerLayer);
+		layersZoomFactor = zoomFactor;
+		
+		linesLayer.begin();
+		beginLayer(width, height);
+		
+		shapeRenderer.begin(ShapeType.Filled);
+		shapeRenderer.setColor(BACKGROUND_COLOR);
 		// Translucent background pitch
-		match.shapeRenderer.rect(this.origin.x, this.origin.y, (float)PITCH_WIDTH_IN_PX * ratio, (float)PITCH_HEIGHT_IN_PX * ratio);
-		match.shapeRenderer.end();
-		//Gdx.gl.glDisable(GL20.GL_BLEND);
+		shapeRenderer.rect(MARGIN, MARGIN, (float)PITCH_WIDTH_IN_PX * ratio, (float)PITCH_HEIGHT_IN_PX * ratio);
+		shapeRenderer.end();
 
-		match.shapeRenderer.begin(ShapeType.Line);
-		match.shapeRenderer.setColor(new Color(0x1f1f1f3f));
+		shapeRenderer.begin(ShapeType.Line);
+		shapeRenderer.setColor(LINE_COLOR);
 		Gdx.gl.glLineWidth(2);
 		
 		// Pitch border
-		match.shapeRenderer.rect(this.origin.x, this.origin.y, (float)PITCH_WIDTH_IN_PX * ratio, (float)PITCH_HEIGHT_IN_PX * ratio);
+		shapeRenderer.rect(MARGIN, MARGIN, (float)PITCH_WIDTH_IN_PX * ratio, (float)PITCH_HEIGHT_IN_PX * ratio);
+		
+		float penaltyLeft = (float) (MARGIN + (HALF_PITCH_WIDTH_IN_PX - HALF_PENALTY_AREA_WIDTH_IN_PX) * ratio);
+		float penaltyRight = (float) (MARGIN + (HALF_PITCH_WIDTH_IN_PX + HALF_PENALTY_AREA_WIDTH_IN_PX) * ratio);
+		float goalLeft = (float) (MARGIN + (HALF_PITCH_WIDTH_IN_PX - HALF_GOAL_AREA_WIDTH_IN_PX) * ratio);
+		float goalRight = (float) (MARGIN + (HALF_PITCH_WIDTH_IN_PX + HALF_GOAL_AREA_WIDTH_IN_PX) * ratio);
+		float bottom = MARGIN;
+		float top = (float) (MARGIN + PITCH_HEIGHT_IN_PX * ratio);
+		float penaltyBottom = (float) (MARGIN + PENALTY_AREA_HEIGHT_IN_PX * ratio);
+		float penaltyTop = (float) (MARGIN + (PITCH_HEIGHT_IN_PX - PENALTY_AREA_HEIGHT_IN_PX) * ratio);
+		float goalBottom = (float) (MARGIN + GOAL_AREA_HEIGHT_IN_PX * ratio);
+		float goalTop = (float) (MARGIN + (PITCH_HEIGHT_IN_PX - GOAL_AREA_HEIGHT_IN_PX) * ratio);
+		float halfWay = (float) (MARGIN + HALF_PITCH_HEIGHT_IN_PX * ratio);
 		
 		// Penalty area horizontal lines
-		match.shapeRenderer.line( (float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX - HALF_PENALTY_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + PENALTY_AREA_HEIGHT_IN_PX * ratio),
-				(float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX + HALF_PENALTY_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + PENALTY_AREA_HEIGHT_IN_PX * ratio));
-
-		match.shapeRenderer.line( (float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX - HALF_PENALTY_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + (PITCH_HEIGHT_IN_PX - PENALTY_AREA_HEIGHT_IN_PX) * ratio),
-				(float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX + HALF_PENALTY_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + (PITCH_HEIGHT_IN_PX - PENALTY_AREA_HEIGHT_IN_PX) * ratio));		
-
+		shapeRenderer.line(penaltyLeft, penaltyBottom, penaltyRight, penaltyBottom);
+		shapeRenderer.line(penaltyLeft, penaltyTop, penaltyRight, penaltyTop);
 		// Half way horizontal line
-		match.shapeRenderer.line( (float)(this.origin.x),
-				(float)(this.origin.y + HALF_PITCH_HEIGHT_IN_PX * ratio),
-				(float)(this.origin.x + PITCH_WIDTH_IN_PX * ratio),
-				(float)(this.origin.y + HALF_PITCH_HEIGHT_IN_PX * ratio));									                  
-
+		shapeRenderer.line(MARGIN, halfWay, (float) (MARGIN + PITCH_WIDTH_IN_PX * ratio), halfWay);
 		// Goal area horizontal lines
-		match.shapeRenderer.line( (float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX - HALF_GOAL_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + GOAL_AREA_HEIGHT_IN_PX * ratio),
-				(float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX + HALF_GOAL_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + GOAL_AREA_HEIGHT_IN_PX * ratio));
-
-		match.shapeRenderer.line( (float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX - HALF_GOAL_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + (PITCH_HEIGHT_IN_PX - GOAL_AREA_HEIGHT_IN_PX) * ratio),
-				(float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX + HALF_GOAL_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + (PITCH_HEIGHT_IN_PX - GOAL_AREA_HEIGHT_IN_PX) * ratio));					                  
-
+		shapeRenderer.line(goalLeft, goalBottom, goalRight, goalBottom);
+		shapeRenderer.line(goalLeft, goalTop, goalRight, goalTop);
 		// Penalty area vertical lines
-		match.shapeRenderer.line( (float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX - HALF_PENALTY_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y),
-				(float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX - HALF_PENALTY_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + PENALTY_AREA_HEIGHT_IN_PX * ratio));
-		match.shapeRenderer.line( (float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX + HALF_PENALTY_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y),
-				(float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX + HALF_PENALTY_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + PENALTY_AREA_HEIGHT_IN_PX * ratio));
-
-		match.shapeRenderer.line( (float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX - HALF_PENALTY_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + (PITCH_HEIGHT_IN_PX - PENALTY_AREA_HEIGHT_IN_PX) * ratio),
-				(float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX - HALF_PENALTY_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + PITCH_HEIGHT_IN_PX * ratio));
-		match.shapeRenderer.line( (float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX + HALF_PENALTY_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + (PITCH_HEIGHT_IN_PX - PENALTY_AREA_HEIGHT_IN_PX) * ratio),
-				(float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX + HALF_PENALTY_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + PITCH_HEIGHT_IN_PX * ratio));						                  	
-
+		shapeRenderer.line(penaltyLeft, bottom, penaltyLeft, penaltyBottom);
+		shapeRenderer.line(penaltyRight, bottom, penaltyRight, penaltyBottom);
+		shapeRenderer.line(penaltyLeft, penaltyTop, penaltyLeft, top);
+		shapeRenderer.line(penaltyRight, penaltyTop, penaltyRight, top);
 		// Goal area vertical lines
-		match.shapeRenderer.line( (float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX - HALF_GOAL_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y),
-				(float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX - HALF_GOAL_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + GOAL_AREA_HEIGHT_IN_PX * ratio));
-		match.shapeRenderer.line( (float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX + HALF_GOAL_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y),
-				(float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX + HALF_GOAL_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + GOAL_AREA_HEIGHT_IN_PX * ratio));
-
-		match.shapeRenderer.line( (float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX - HALF_GOAL_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + (PITCH_HEIGHT_IN_PX - GOAL_AREA_HEIGHT_IN_PX) * ratio),
-				(float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX - HALF_GOAL_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + PITCH_HEIGHT_IN_PX * ratio));
-		match.shapeRenderer.line( (float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX + HALF_GOAL_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + (PITCH_HEIGHT_IN_PX - GOAL_AREA_HEIGHT_IN_PX) * ratio),
-				(float)(this.origin.x + (HALF_PITCH_WIDTH_IN_PX + HALF_GOAL_AREA_WIDTH_IN_PX) * ratio),
-				(float)(this.origin.y + PITCH_HEIGHT_IN_PX * ratio));
-		match.shapeRenderer.end();
-
-		match.shapeRenderer.begin(ShapeType.Filled);
+		shapeRenderer.line(goalLeft, bottom, goalLeft, goalBottom);
+		shapeRenderer.line(goalRight, bottom, goalRight, goalBottom);
+		shapeRenderer.line(goalLeft, goalTop, goalLeft, top);
+		shapeRenderer.line(goalRight, goalTop, goalRight, top);
+		shapeRenderer.end();
+		
+		linesLayer.end();
+		endLayer();
+	}
+	
+	/**
+	 * Draw the players and the ball over the pitch lines, in a single pass
+	 * @param ratio the scanner size over the pitch size
+	 */
+	private void updateScanner(float ratio) {
+		sinceUpdate = 0;
+		
+		scannerLayer.begin();
+		beginLayer(scannerLayer.getWidth(), scannerLayer.getHeight());
+		
+		batch.getProjectionMatrix().set(shapeRenderer.getProjectionMatrix());
+		drawLayer(lines, 0, 0);
+		layerBlending(); // changed by the batch
+		
+		shapeRenderer.begin(ShapeType.Filled);
 		// Ball position
-		match.shapeRenderer.setColor(new Color(1.0f, 1.0f, 1.0f, 0.6f));
-		match.shapeRenderer.circle((float)(this.origin.x + (match.getBall().getPosition().x - OUTER_TOP_EDGE_X ) * ratio),
-				             (float)(this.origin.y + (match.getBall().getPosition().y - OUTER_TOP_EDGE_Y ) * ratio), 3);
-/*		shapeRenderer.line( (float)(this.origin.x + (match.getBall().getPosition().x - OUTER_TOP_EDGE_X ) * ratio),
-				(float)(this.origin.y + (match.getBall().getPosition().y - OUTER_TOP_EDGE_Y ) * ratio),
-				(float)(this.origin.x + 1 + (match.getBall().getPosition().x - OUTER_TOP_EDGE_X ) * ratio),  // + 1 for width
-				(float)(this.origin.y + (match.getBall().getPosition().y - OUTER_TOP_EDGE_Y ) * ratio));*/
+		shapeRenderer.setColor(BALL_COLOR);
+		shapeRenderer.circle(MARGIN + (match.getBall().getPosition().x - OUTER_TOP_EDGE_X) * ratio,
+		                     MARGIN + (match.getBall().getPosition().y - OUTER_TOP_EDGE_Y) * ratio, 3);
 		
 		// Player position
-		match.shapeRenderer.setColor(new Color(1.0f, 0, 0, 0.6f));
+		shapeRenderer.setColor(HOME_COLOR);
 		for (Player player : match.getHomeTeam().getPlayers())
-			match.shapeRenderer.circle((float)(this.origin.x + (player.getPosition().x - OUTER_TOP_EDGE_X ) * ratio),
-				             (float)(this.origin.y + (player.getPosition().y - OUTER_TOP_EDGE_Y ) * ratio), 5);
-		match.shapeRenderer.setColor(new Color(0, 0, 1.0f, 0.6f));
+			shapeRenderer.circle(MARGIN + (player.getPosition().x - OUTER_TOP_EDGE_X) * ratio,
+			                     MARGIN + (player.getPosition().y - OUTER_TOP_EDGE_Y) * ratio, 5);
+		shapeRenderer.setColor(AWAY_COLOR);
 		for (Player player : match.getAwayTeam().getPlayers())
-			match.shapeRenderer.circle((float)(this.origin.x + (player.getPosition().x - OUTER_TOP_EDGE_X ) * ratio),
-				             (float)(this.origin.y + (player.getPosition().y - OUTER_TOP_EDGE_Y ) * ratio), 5);
-/*		shapeRenderer.line( (float)(this.origin.x + (match.player.getPosition().x - OUTER_TOP_EDGE_X ) * ratio),
-				(float)(this.origin.y + (match.player.getPosition().y - OUTER_TOP_EDGE_Y ) * ratio),
-				(float)(this.origin.x + 1 + (match.player.getPosition().x - OUTER_TOP_EDGE_X ) * ratio),  // + 1 for width
-				(float)(this.origin.y + (match.player.getPosition().y - OUTER_TOP_EDGE_Y ) * ratio));*/
-
-		match.shapeRenderer.end();
-		Gdx.gl.glDisable(GL20.GL_BLEND);
-		//batch.begin();
+			shapeRenderer.circle(MARGIN + (player.getPosition().x - OUTER_TOP_EDGE_X) * ratio,
+			                     MARGIN + (player.getPosition().y - OUTER_TOP_EDGE_Y) * ratio, 5);
+		shapeRenderer.end();
+		
+		scannerLayer.end();
+		endLayer();
+	}
+	
+	/**
+	 * Clear the bound layer and set the renderers up to draw in it
+	 * @param width the layer width
+	 * @param height the layer height
+	 */
+	private void beginLayer(int width, int height) {
+		Gdx.gl.glClearColor(0, 0, 0, 0);
+		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+		shapeRenderer.getProjectionMatrix().setToOrtho2D(0, 0, width, height);
+		shapeRenderer.updateMatrices();
+		layerBlending();
+	}
+	
+	/**
+	 * Blend the shapes drawn in a layer so it holds premultiplied colours: the colours are
+	 * weighted by their alpha and the coverage accumulates in the alpha channel
+	 */
+	private static void layerBlending() {
+		Gdx.gl.glEnable(GL20.GL_BLEND);
+		Gdx.gl.glBlendFuncSeparate(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA, GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+	}
+	
+	/**
+	 * Restore the default blending once a layer is drawn, for the other renderers
+	 */
+	private static void endLayer() {
+		Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+	}
+	
+	/**
+	 * Draw a layer, its colours being premultiplied already (see {@link #layerBlending()})
+	 * @param layer the layer texture
+	 * @param x the layer position
+	 * @param y the layer position
+	 */
+	private void drawLayer(TextureRegion layer, float x, float y) {
+		batch.setBlendFunction(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+		batch.begin();
+		batch.draw(layer, x, y);
+		batch.end();
+		batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+	}
+	
+	private static TextureRegion flipped(FrameBuffer frameBuffer) {
+		TextureRegion region = new TextureRegion(frameBuffer.getColorBufferTexture());
+		region.flip(false, true); // frame buffers are stored upside down
+		return region;
+	}
+	
+	private void disposeLayers() {
+		if (linesLayer != null) linesLayer.dispose();
+		if (scannerLayer != null) scannerLayer.dispose();
+		linesLayer = null;
+		scannerLayer = null;
+		layersZoomFactor = -1;
+	}
+	
+	/**
+	 * Get the number of scanner updates per second
+	 * @return the update rate
+	 */
+	public float getUpdateRate() {
+		return updateRate;
+	}
+	
+	/**
+	 * Set the number of scanner updates per second
+	 * @param updateRate the update rate
+	 */
+	public void setUpdateRate(float updateRate) {
+		this.updateRate = updateRate;
 	}
 	
 	/**
@@ -178,4 +284,11 @@ public class Scanner implements FootballDimensions {
 		zoomFactor++;
 		zoomFactor = zoomFactor % (ZOOM.length);
 	}
+
+	@Override
+	public void dispose() {
+		disposeLayers();
+		shapeRenderer.dispose();
+		batch.dispose();
+	}
 }
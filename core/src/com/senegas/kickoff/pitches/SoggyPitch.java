@@ -3,7 +3,7 @@ package com.senegas.kickoff.pitches;
 public class SoggyPitch extends Pitch {
 	
 	public SoggyPitch() {
-		super("pitches/soggy.tmx", 1.125f );
+		super("pitches/soggy.tmx", Type.SOGGY.getFriction());
 	}
 	
 }
@@ -3,7 +3,7 @@ package com.senegas.kickoff.pitches;
 public class WetPitch extends Pitch {
 
 	public WetPitch() {
-		super("pitches/wet.tmx", 0.775f );
+		super("pitches/wet.tmx", Type.WET.getFriction());
 	}
 
 }
@@ -0,0 +1,79 @@
+package com.senegas.kickoff.renderers;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Vector3;
+import com.senegas.kickoff.Assets;
+import com.senegas.kickoff.entities.Ball;
+
+/**
+ * Draws the ball and its shadow
+ */
+public class BallRenderer {
+
+	private final static int SPRITE_WIDTH = 16;
+	private final static int SPRITE_HEIGHT = 16;
+	private final static Color CROSSHAIR_COLOR = new Color(0, 0, 0, 0.5f);
+
+	private TextureRegion frames[][];
+	private Vector3 position = new Vector3();
+
+	/**
+	 * Constructor
+	 * @param assets the asset manager holding the sprites atlas
+	 */
+	public BallRenderer(AssetManager assets) {
+		frames = assets.get(Assets.SPRITES, TextureAtlas.class).findRegion(Assets.BALL).split(SPRITE_WIDTH, SPRITE_HEIGHT);
+	}
+
+	/**
+	 * Queue the ball and shadow animations, both sorted by the ball ground position
+	 * @param queue the frame sprites
+	 * @param ball
+	 * @param alpha interpolation factor between the previous and the current simulation tick
+	 */
+	public void draw(SpriteQueue queue, Ball ball, float alpha) {
+		ball.getInterpolatedPosition(alpha, position);
+
+		int scrx = (int)position.x;
+		int scry = (int)position.y;
+		int shadx = scrx + (int)(position.z / 2);
+		int shady = scry + (int)(position.z / 2);
+
+		int currentFrame = shadx - scrx;
+		if (currentFrame < 4) {
+			//low ball, sprite contained in shadow
+			scry += position.z / 2;
+			if (currentFrame >= 0 && currentFrame < 8) {
+				queue.add(frames[0][currentFrame], scrx - SPRITE_WIDTH/2, scry - SPRITE_HEIGHT/2,
+				          position.y, SpriteQueue.LAYER_OBJECTS);
+			}
+		}
+		else {
+			//draw shadow
+			int shadowFrame = 8;
+			queue.add(frames[0][shadowFrame], shadx - SPRITE_WIDTH/2, shady - SPRITE_HEIGHT/2,
+			          position.y, SpriteQueue.LAYER_GROUND);
+			//draw ball
+			scry += (position.z / 2);
+			currentFrame = (int) Math.min(3, position.z/32);
+			int ballFrame = currentFrame + 4;
+			queue.add(frames[0][ballFrame], scrx - SPRITE_WIDTH/2, scry - SPRITE_HEIGHT/2,
+			          position.y, SpriteQueue.LAYER_OBJECTS);
+		}
+	}
+
+	/**
+	 * Debug only method that queues a crosshair at the ball position
+	 * @param debugRenderer
+	 * @param ball
+	 */
+	public void showPosition(DebugRenderer debugRenderer, Ball ball) {
+		Vector3 position = ball.getPosition();
+
+		debugRenderer.line(position.x - SPRITE_WIDTH/2, position.y, position.x + SPRITE_WIDTH/2, position.y, CROSSHAIR_COLOR);
+		debugRenderer.line(position.x, position.y - SPRITE_HEIGHT/2, position.x, position.y + SPRITE_HEIGHT/2, CROSSHAIR_COLOR);
+	}
+}
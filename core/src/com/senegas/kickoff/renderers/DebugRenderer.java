@@ -0,0 +1,144 @@
+package com.senegas.kickoff.renderers;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.FloatArray;
+
+/**
+ * Collects the debug primitives of a frame and draws them at once, with a single
+ * begin/end per shape type: the filled shapes first, then the outlines over them
+ * <p>
+ * Primitives are queued as floats, so a frame does not allocate once the queues grew to their size.
+ */
+public class DebugRenderer implements Disposable {
+
+	/** Floats per queued primitive: 4 for the geometry, 4 for the color */
+	private static final int STRIDE = 8;
+
+	private final ShapeRenderer shapeRenderer = new ShapeRenderer();
+	private final FloatArray lines = new FloatArray();
+	private final FloatArray circles = new FloatArray();
+	private final FloatArray filledRects = new FloatArray();
+	private final FloatArray filledCircles = new FloatArray();
+
+	/**
+	 * Queue a line
+	 * @param x1
+	 * @param y1
+	 * @param x2
+	 * @param y2
+	 * @param color
+	 */
+	public void line(float x1, float y1, float x2, float y2, Color color) {
+		add(lines, x1, y1, x2, y2, color);
+	}
+
+	/**
+	 * Queue a circle outline
+	 * @param x
+	 * @param y
+	 * @param radius
+	 * @param color
+	 */
+	public void circle(float x, float y, float radius, Color color) {
+		add(circles, x, y, radius, 0, color);
+	}
+
+	/**
+	 * Queue a filled rectangle
+	 * @param x
+	 * @param y
+	 * @param width
+	 * @param height
+	 * @param color
+	 */
+	public void filledRect(float x, float y, float width, float height, Color color) {
+		add(filledRects, x, y, width, height, color);
+	}
+
+	/**
+	 * Queue a filled circle
+	 * @param x
+	 * @param y
+	 * @param radius
+	 * @param color
+	 */
+	public void filledCircle(float x, float y, float radius, Color color) {
+		add(filledCircles, x, y, radius, 0, color);
+	}
+
+	private static void add(FloatArray queue, float a, float b, float c, float d, Color color) {
+		float[] items = queue.ensureCapacity(STRIDE);
+		int i = queue.size;
+		items[i] = a;
+		items[i + 1] = b;
+		items[i + 2] = c;
+		items[i + 3] = d;
+		items[i + 4] = color.r;
+		items[i + 5] = color.g;
+		items[i + 6] = color.b;
+		items[i + 7] = color.a;
+		queue.size += STRIDE;
+	}
+
+	/**
+	 * Draw and clear the queued primitives
+	 * @param projection the projection of the primitives coordinates
+	 */
+	public void flush(Matrix4 projection) {
+		if (lines.size + circles.size + filledRects.size + filledCircles.size == 0) return;
+
+		// enable transparency
+		Gdx.gl.glEnable(GL20.GL_BLEND);
+		Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+
+		shapeRenderer.setProjectionMatrix(projection);
+
+		if (filledRects.size + filledCircles.size > 0) {
+			shapeRenderer.begin(ShapeType.Filled);
+			float[] items = filledRects.items;
+			for (int i = 0; i < filledRects.size; i += STRIDE) {
+				shapeRenderer.setColor(items[i + 4], items[i + 5], items[i + 6], items[i + 7]);
+				shapeRenderer.rect(items[i], items[i + 1], items[i + 2], items[i + 3]);
+			}
+			items = filledCircles.items;
+			for (int i = 0; i < filledCircles.size; i += STRIDE) {
+				shapeRenderer.setColor(items[i + 4], items[i + 5], items[i + 6], items[i + 7]);
+				shapeRenderer.circle(items[i], items[i + 1], items[i + 2]);
+			}
+			shapeRenderer.end();
+		}
+
+		if (lines.size + circles.size > 0) {
+			shapeRenderer.begin(ShapeType.Line);
+			float[] items = lines.items;
+			for (int i = 0; i < lines.size; i += STRIDE) {
+				shapeRenderer.setColor(items[i + 4], items[i + 5], items[i + 6], items[i + 7]);
+				shapeRenderer.line(items[i], items[i + 1], items[i + 2], items[i + 3]);
+			}
+			items = circles.items;
+			for (int i = 0; i < circles.size; i += STRIDE) {
+				shapeRenderer.setColor(items[i + 4], items[i + 5], items[i + 6], items[i + 7]);
+				shapeRenderer.circle(items[i], items[i + 1], items[i + 2]);
+			}
+			shapeRenderer.end();
+		}
+
+		Gdx.gl.glDisable(GL20.GL_BLEND);
+
+		lines.clear();
+		circles.clear();
+		filledRects.clear();
+		filledCircles.clear();
+	}
+
+	@Override
+	public void dispose() {
+		shapeRenderer.dispose();
+	}
+}
@@ -0,0 +1,71 @@
+package com.senegas.kickoff.renderers;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
+import com.badlogic.gdx.utils.Disposable;
+import com.senegas.kickoff.pitches.Pitch;
+
+/**
+ * Draws the pitch from a texture baked once from its tile map, so the cost of a frame
+ * does not depend on the number of visible tiles (i.e. on the camera zoom)
+ */
+public class PitchRenderer implements Disposable {
+
+	private FrameBuffer frameBuffer;
+	private TextureRegion region;
+
+	/**
+	 * Constructor, bakes the tile map
+	 * @param tiledMap the pitch tile map
+	 */
+	public PitchRenderer(TiledMap tiledMap) {
+		frameBuffer = new FrameBuffer(Pixmap.Format.RGB888, Pitch.WIDTH, Pitch.HEIGHT, false);
+
+		OrthographicCamera camera = new OrthographicCamera();
+		camera.setToOrtho(false, Pitch.WIDTH, Pitch.HEIGHT);
+		OrthogonalTiledMapRenderer mapRenderer = new OrthogonalTiledMapRenderer(tiledMap);
+		mapRenderer.setView(camera);
+
+		frameBuffer.begin();
+		Gdx.gl.glClearColor(0, 0, 0, 1);
+		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+		mapRenderer.render();
+		frameBuffer.end();
+		mapRenderer.dispose();
+
+		Texture texture = frameBuffer.getColorBufferTexture();
+		if (Gdx.gl30 != null) {
+			// mipmaps keep the pitch lines clean when zoomed out
+			texture.bind();
+			Gdx.gl.glGenerateMipmap(GL20.GL_TEXTURE_2D);
+			texture.setFilter(TextureFilter.MipMapLinearLinear, TextureFilter.Nearest);
+		} else {
+			texture.setFilter(TextureFilter.Linear, TextureFilter.Nearest);
+		}
+
+		region = new TextureRegion(texture);
+		region.flip(false, true); // frame buffers are stored upside down
+	}
+
+	/**
+	 * Draw the pitch
+	 * @param batch a batch using the world projection
+	 */
+	public void draw(Batch batch) {
+		batch.draw(region, 0, 0);
+	}
+
+	@Override
+	public void dispose() {
+		frameBuffer.dispose();
+	}
+}
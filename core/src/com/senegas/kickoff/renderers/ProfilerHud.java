@@ -0,0 +1,85 @@
+package com.senegas.kickoff.renderers;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.senegas.kickoff.utils.FrameProfiler;
+import com.senegas.kickoff.utils.FrameProfiler.Phase;
+
+/**
+ * Displays the p50, p95, p99 and max duration of each profiled phase in microseconds
+ * <p>
+ * The table is rebuilt every {@link #REFRESH_FRAMES} frames into reused builders, so drawing
+ * it does not allocate.
+ */
+public class ProfilerHud {
+
+	private static final int REFRESH_FRAMES = 30;
+	private static final float LINE_HEIGHT = 20;
+	private static final float[] PERCENTILES = {50, 95, 99};
+	private static final Phase[] PHASES = Phase.values();
+
+	private final FrameProfiler profiler;
+	private final StringBuilder[] lines = new StringBuilder[PHASES.length + 1];
+	private final long[] percentiles = new long[PERCENTILES.length];
+	private int sinceRefresh = REFRESH_FRAMES;
+
+	/**
+	 * Constructor
+	 * @param profiler the profiler to display
+	 */
+	public ProfilerHud(FrameProfiler profiler) {
+		this.profiler = profiler;
+		for (int i = 0; i < lines.length; i++) {
+			lines[i] = new StringBuilder(64);
+		}
+		lines[0].append("phase         p50    p95    p99    max (us)");
+	}
+
+	/**
+	 * Draw the table, its top left corner at (x, y)
+	 * @param batch a batch between begin and end
+	 * @param font
+	 * @param x
+	 * @param y
+	 */
+	public void draw(Batch batch, BitmapFont font, float x, float y) {
+		if (++sinceRefresh >= REFRESH_FRAMES) {
+			sinceRefresh = 0;
+			refresh();
+		}
+
+		for (int i = 0; i < lines.length; i++) {
+			font.draw(batch, lines[i], x, y - i * LINE_HEIGHT);
+		}
+	}
+
+	private void refresh() {
+		for (int phase = 0; phase < PHASES.length; phase++) {
+			StringBuilder line = lines[phase + 1];
+			line.setLength(0);
+			line.append(PHASES[phase].getLabel());
+			pad(line, 10);
+
+			profiler.getPercentiles(PHASES[phase], PERCENTILES, percentiles);
+			for (long percentile : percentiles) {
+				appendMicros(line, percentile);
+			}
+			appendMicros(line, profiler.getMax(PHASES[phase]));
+		}
+	}
+
+	private static void appendMicros(StringBuilder line, long nanos) {
+		int start = line.length();
+		line.append(nanos / 1000);
+		// right align on 7 columns
+		while (line.length() - start < 7) {
+			line.insert(start, ' ');
+		}
+	}
+
+	private static void pad(StringBuilder line, int length) {
+		while (line.length() < length) {
+			line.append(' ');
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package com.senegas.kickoff.renderers;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * Collects the sprites of a frame and draws them back to front in a single batch pass
+ * <p>
+ * Sprites are sorted by layer, then by depth: the higher on the pitch, the further away.
+ * The draw order of a frame is kept for the next one, in which the sprites are added in the
+ * same order and hardly moved, so the insertion sort runs in about linear time.
+ */
+public class SpriteQueue {
+	/** Sprites lying on the pitch, e.g. shadows, drawn below everything else */
+	public static final int LAYER_GROUND = 0;
+	/** Sprites standing on the pitch, e.g. players and ball */
+	public static final int LAYER_OBJECTS = 1;
+
+	private static final int DEPTH_BITS = 20;
+	private static final int MAX_DEPTH = (1 << DEPTH_BITS) - 1;
+
+	private TextureRegion[] regions = new TextureRegion[32];
+	private float[] x = new float[32];
+	private float[] y = new float[32];
+	private int[] keys = new int[32];
+	/** Draw order, indices of the sprites sorted by key */
+	private int[] order = new int[32];
+	private int size;
+	/** Number of sprites the order was computed for */
+	private int orderSize;
+
+	/**
+	 * Queue a sprite
+	 * @param region the sprite frame
+	 * @param x the sprite position
+	 * @param y the sprite position
+	 * @param depth the y coordinate sorting the sprite, usually its ground position
+	 * @param layer the sprite layer, see {@link #LAYER_GROUND}
+	 */
+	public void add(TextureRegion region, float x, float y, float depth, int layer) {
+		if (size == regions.length) grow();
+
+		int depthKey = MAX_DEPTH - Math.max(0, Math.min(MAX_DEPTH, (int) depth));
+		regions[size] = region;
+		this.x[size] = x;
+		this.y[size] = y;
+		keys[size] = layer << DEPTH_BITS | depthKey;
+		size++;
+	}
+
+	/**
+	 * Draw the queued sprites in order, then clear the queue
+	 * @param batch a batch between begin and end
+	 */
+	public void draw(Batch batch) {
+		sort();
+		for (int i = 0; i < size; i++) {
+			int sprite = order[i];
+			batch.draw(regions[sprite], x[sprite], y[sprite]);
+			regions[sprite] = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Insertion sort of the draw order, starting from the last frame order
+	 */
+	private void sort() {
+		if (orderSize != size) {
+			for (int i = 0; i < size; i++) {
+				order[i] = i;
+			}
+			orderSize = size;
+		}
+
+		for (int i = 1; i < size; i++) {
+			int sprite = order[i];
+			int key = keys[sprite];
+			int j = i - 1;
+			while (j >= 0 && keys[order[j]] > key) {
+				order[j + 1] = order[j];
+				j--;
+			}
+			order[j + 1] = sprite;
+		}
+	}
+
+	private void grow() {
+		int capacity = regions.length * 2;
+		TextureRegion[] regions = new TextureRegion[capacity];
+		float[] x = new float[capacity];
+		float[] y = new float[capacity];
+		int[] keys = new int[capacity];
+		int[] order = new int[capacity];
+		System.arraycopy(this.regions, 0, regions, 0, size);
+		System.arraycopy(this.x, 0, x, 0, size);
+		System.arraycopy(this.y, 0, y, 0, size);
+		System.arraycopy(this.keys, 0, keys, 0, size);
+		System.arraycopy(this.order, 0, order, 0, size);
+		this.regions = regions;
+		this.x = x;
+		this.y = y;
+		this.keys = keys;
+		this.order = order;
+	}
+}
@@ -0,0 +1,99 @@
+package com.senegas.kickoff.renderers;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Circle;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.math.Vector3;
+import com.senegas.kickoff.Assets;
+import com.senegas.kickoff.entities.Ball;
+import com.senegas.kickoff.entities.EntityStore;
+import com.senegas.kickoff.entities.Player;
+import com.senegas.kickoff.entities.Player.Direction;
+import com.senegas.kickoff.entities.Team;
+import com.senegas.kickoff.tactics.Tactic;
+import com.senegas.kickoff.utils.PitchUtils;
+
+/**
+ * Draws the players of a team with the team's kit
+ */
+public class TeamRenderer {
+
+	private final static int SHEET_COLUMNS = 20;
+	private final static Color BOUNDS_COLOR = new Color(0, 0, 0, 0.5f);
+	private final static Color CELL_COLOR = new Color(0.8f, 0, 0, 0.2f);
+	private final static Color LOCATION_COLOR = new Color(1.0f, 0.5f, 0, 0.4f);
+
+	private Team team;
+	private TextureRegion frames[][];
+	private Vector3 position = new Vector3();
+	private Rectangle cell = new Rectangle();
+	private Vector2 destination = new Vector2();
+	private Vector3 cellLocation = new Vector3();
+
+	/**
+	 * Constructor
+	 * @param team the team to draw
+	 * @param assets the asset manager holding the sprites atlas
+	 */
+	public TeamRenderer(Team team, AssetManager assets) {
+		this.team = team;
+		TextureAtlas atlas = assets.get(Assets.SPRITES, TextureAtlas.class);
+		TextureRegion kit = atlas.findRegion(team.getDirection() == Direction.NORTH ? Assets.HOME_KIT : Assets.AWAY_KIT);
+		this.frames = kit.split(Player.SPRITE_WIDTH, Player.SPRITE_HEIGHT);
+	}
+
+	/**
+	 * Queue the team's players
+	 * @param queue the frame sprites
+	 * @param alpha interpolation factor between the previous and the current simulation tick
+	 */
+	public void draw(SpriteQueue queue, float alpha) {
+		for (Player player : team.getPlayers()) {
+			int frame = player.getAnimationFrame();
+			player.getInterpolatedPosition(alpha, position);
+			queue.add(frames[frame / SHEET_COLUMNS][frame % SHEET_COLUMNS],
+					position.x - Player.SPRITE_WIDTH/2, position.y - Player.SPRITE_HEIGHT/2,
+					position.y, SpriteQueue.LAYER_OBJECTS);
+		}
+	}
+
+	/**
+	 * Debug only method that queues the players bounds and the tactic position field cell
+	 * @param debugRenderer
+	 * @param ball
+	 */
+	public void showDebug(DebugRenderer debugRenderer, Ball ball) {
+		if (team.getDirection() == Direction.NORTH) {
+			for (Player player : team.getPlayers()) {
+				Circle bounds = player.getBounds();
+				debugRenderer.circle(bounds.x, bounds.y, bounds.radius, BOUNDS_COLOR);
+			}
+			showFieldCellAndDestinations(debugRenderer, ball);
+		}
+	}
+
+	/**
+	 * Queues the position field cell of the ball and the destinations the tactic gives the players for it
+	 * @param debugRenderer
+	 * @param ball
+	 */
+	private void showFieldCellAndDestinations(DebugRenderer debugRenderer, Ball ball) {
+		Tactic tactic = team.getTactic();
+
+		// active cell
+		int cellIndex = Tactic.getFieldCell(ball, team);
+		Tactic.getFieldCellBounds(cellIndex, team, cell);
+		PitchUtils.pitchToGlobal(cell.x, cell.y, cellLocation);
+		debugRenderer.filledRect(cellLocation.x, cellLocation.y, cell.width, cell.height, CELL_COLOR);
+
+		// player destinations, already in global coordinates
+		for (int playerIndex = 0; playerIndex < EntityStore.PLAYERS_PER_TEAM; playerIndex++) {
+			tactic.getFieldDestination(playerIndex, cellIndex, destination);
+			debugRenderer.filledCircle(destination.x, destination.y, 8, LOCATION_COLOR);
+		}
+	}
+}
@@ -0,0 +1,243 @@
+package com.senegas.kickoff.replay;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.LongArray;
+import com.senegas.kickoff.simulation.MatchSimulation;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Records a match tick by tick to a file, see {@link Recording} for the layout
+ * <p>
+ * The ticks are encoded on the simulation thread into a ring of preallocated blocks.
+ * A full block is handed to a writer thread, which deflates it and appends it to the file,
+ * so recording a tick never waits for the disk. Should the writer fall behind until no block
+ * is free, the ticks are dropped rather than waited for: the next block starts afresh and the
+ * file only misses these ticks.
+ * @author Sébastien Sénégas
+ *
+ */
+public class MatchRecorder implements Closeable {
+	/** Blocks of the ring, one being filled while the others wait for the writer */
+	private static final int BLOCK_COUNT = 4;
+	/** Marks the end of the recording in the writer queue */
+	private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+	private final FileHandle file;
+	private final FileChannel channel;
+	private final ArrayBlockingQueue<ByteBuffer> freeBlocks = new ArrayBlockingQueue<ByteBuffer>(BLOCK_COUNT);
+	private final ArrayBlockingQueue<ByteBuffer> fullBlocks = new ArrayBlockingQueue<ByteBuffer>(BLOCK_COUNT + 1);
+	private final Thread writer;
+	/** Set by the writer when the file cannot be written, the following blocks are discarded */
+	private volatile IOException failure;
+
+	private final int[] previous = new int[Recording.FIELDS];
+	private final int[] frame = new int[Recording.FIELDS];
+	/** Block being filled, null if none was free */
+	private ByteBuffer block;
+	private long blockFirstTick;
+	private int blockTicks;
+	private int droppedTicks;
+	private boolean closed;
+
+	/**
+	 * Constructor, writes the file header and starts the writer thread
+	 * @param file the recording file, replaced if it exists
+	 * @param simulation the recorded match
+	 * @throws IOException
+	 */
+	public MatchRecorder(FileHandle file, MatchSimulation simulation) throws IOException {
+		this.file = file;
+		file.parent().mkdirs();
+		channel = new FileOutputStream(file.file()).getChannel();
+
+		ByteBuffer header = ByteBuffer.allocate(1024);
+		Recording.putHeader(simulation, header);
+		header.flip();
+		writeFully(header);
+
+		for (int i = 0; i < BLOCK_COUNT; i++) {
+			freeBlocks.add(ByteBuffer.allocate(Recording.BLOCK_CAPACITY));
+		}
+
+		writer = new Thread(new Writer(), "MatchRecorder");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Record the current tick of the match, to be called after each simulation step
+	 * @param simulation the recorded match
+	 */
+	public void record(MatchSimulation simulation) {
+		if (closed) return;
+
+		Recording.capture(simulation, frame);
+		record(simulation.getTick(), frame);
+	}
+
+	/**
+	 * Record a tick captured earlier, see {@link Recording#capture(MatchSimulation, int[])}.
+	 * The ticks follow each other, starting from any tick.
+	 * @param tick the tick of the match once stepped, see {@link MatchSimulation#getTick()}
+	 * @param frame the {@link Recording#FIELDS} fields of the tick
+	 */
+	public void record(long tick, int[] frame) {
+		if (closed) return;
+
+		if (block == null) {
+			block = freeBlocks.poll();
+			if (block == null) {
+				droppedTicks++;
+				return;
+			}
+			block.clear();
+			block.position(Recording.BLOCK_HEADER);
+			blockFirstTick = tick;
+			blockTicks = 0;
+			Arrays.fill(previous, 0);
+		}
+
+		Recording.encode(previous, frame, block);
+		System.arraycopy(frame, 0, previous, 0, Recording.FIELDS);
+		blockTicks++;
+
+		if (blockTicks == Recording.BLOCK_TICKS || block.remaining() < Recording.MAX_FRAME_BYTES) {
+			publish();
+		}
+	}
+
+	/**
+	 * Hand the block being filled to the writer
+	 */
+	private void publish() {
+		block.putLong(0, blockFirstTick);
+		block.putInt(8, blockTicks);
+		block.flip();
+		fullBlocks.add(block); // never full, there are fewer blocks than slots
+		block = null;
+	}
+
+	/**
+	 * Write the last ticks and the index and close the file, waiting for the writer to finish
+	 * @throws IOException if the file could not be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) return;
+
+		closed = true;
+		if (block != null) publish();
+		fullBlocks.add(END);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		channel.close();
+
+		if (droppedTicks > 0) {
+			Gdx.app.error("MatchRecorder", droppedTicks + " ticks dropped from " + file.path());
+		}
+		if (failure != null) throw failure;
+	}
+
+	/**
+	 * Get the recording file
+	 * @return the file
+	 */
+	public FileHandle getFile() {
+		return file;
+	}
+
+	private void writeFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Deflates the full blocks and appends them to the file, then the index once all are written
+	 */
+	private class Writer implements Runnable {
+		private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		private final byte[] deflated = new byte[Recording.DEFLATED_CAPACITY];
+		private final ByteBuffer header = ByteBuffer.allocate(Recording.BLOCK_HEADER);
+		/** First tick and file position of each written block */
+		private final LongArray blockTicks = new LongArray();
+		private final LongArray blockPositions = new LongArray();
+
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					ByteBuffer block = fullBlocks.take();
+					if (block == END) {
+						if (failure == null) writeIndex();
+						break;
+					}
+
+					if (failure == null) {
+						try {
+							write(block);
+						} catch (IOException e) {
+							failure = e;
+						}
+					}
+					freeBlocks.add(block);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (IOException e) {
+				failure = e;
+			} finally {
+				deflater.end();
+			}
+		}
+
+		private void write(ByteBuffer block) throws IOException {
+			int encodedLength = block.limit() - Recording.BLOCK_HEADER;
+			deflater.reset();
+			deflater.setInput(block.array(), Recording.BLOCK_HEADER, encodedLength);
+			deflater.finish();
+			int deflatedLength = 0;
+			while (!deflater.finished()) {
+				if (deflatedLength == deflated.length) throw new IOException("Block does not deflate");
+				deflatedLength += deflater.deflate(deflated, deflatedLength, deflated.length - deflatedLength);
+			}
+
+			blockTicks.add(block.getLong(0));
+			blockPositions.add(channel.position());
+			header.clear();
+			header.putLong(block.getLong(0));
+			header.putInt(block.getInt(8));
+			header.putInt(encodedLength);
+			header.putInt(deflatedLength);
+			header.flip();
+			writeFully(header);
+			writeFully(ByteBuffer.wrap(deflated, 0, deflatedLength));
+		}
+
+		private void writeIndex() throws IOException {
+			long indexPosition = channel.position();
+			ByteBuffer index = ByteBuffer.allocate(blockTicks.size * Recording.INDEX_ENTRY + Recording.INDEX_TRAILER);
+			for (int i = 0; i < blockTicks.size; i++) {
+				index.putLong(blockTicks.get(i));
+				index.putLong(blockPositions.get(i));
+			}
+			index.putInt(blockTicks.size);
+			index.putLong(indexPosition);
+			index.putInt(Recording.INDEX_MAGIC);
+			index.flip();
+			writeFully(index);
+		}
+	}
+}
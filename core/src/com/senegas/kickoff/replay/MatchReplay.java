@@ -0,0 +1,233 @@
+package com.senegas.kickoff.replay;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.LongArray;
+import com.senegas.kickoff.pitches.Pitch;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the frames of a recorded match, see {@link Recording} for the layout
+ * <p>
+ * The file is mapped in memory rather than read. Seeking to a tick looks its block up in the
+ * index, inflates that block only and decodes its frames from the keyframe starting it, at most
+ * {@link Recording#BLOCK_TICKS} of them. Reading the following ticks, as a playback does,
+ * decodes one frame each.
+ * @author Sébastien Sénégas
+ *
+ */
+public class MatchReplay implements Disposable {
+	private final ByteBuffer data;
+	private final int ticksPerSecond;
+	private final Pitch.Type pitchType;
+	private final String homeTactic;
+	private final String awayTactic;
+	/** First tick and position of each block */
+	private final long[] blockTicks;
+	private final long[] blockPositions;
+
+	private final Inflater inflater = new Inflater();
+	private final byte[] deflated = new byte[Recording.DEFLATED_CAPACITY];
+	/** Encoded frames of the current block */
+	private final ByteBuffer block = ByteBuffer.allocate(Recording.BLOCK_CAPACITY);
+	private final int[] frame = new int[Recording.FIELDS];
+	/** Block the frames are decoded from, -1 if none */
+	private int currentBlock = -1;
+	private int currentBlockFrames;
+	/** Tick of the last decoded frame */
+	private long frameTick;
+
+	/**
+	 * Constructor
+	 * @param file the recording file
+	 * @throws IOException if the file is not a recording of this version or is corrupted
+	 */
+	public MatchReplay(FileHandle file) throws IOException {
+		data = file.map();
+		if (data.remaining() < 16 || data.getInt() != Recording.MAGIC || data.getInt() != Recording.VERSION) {
+			throw new IOException(file.path() + " is not a version " + Recording.VERSION + " recording");
+		}
+		ticksPerSecond = data.getInt();
+		if (data.getInt() != Recording.FIELDS) {
+			throw new IOException(file.path() + " does not have " + Recording.FIELDS + " fields per frame");
+		}
+
+		// a damaged file fails here rather than while playing
+		try {
+			pitchType = Pitch.Type.valueOf(Recording.getString(data));
+			homeTactic = Recording.getString(data);
+			awayTactic = Recording.getString(data);
+
+			LongArray ticks = new LongArray();
+			LongArray positions = new LongArray();
+			if (!readIndex(ticks, positions)) {
+				scanBlocks(ticks, positions);
+			}
+			if (ticks.size == 0) {
+				throw new IOException(file.path() + " has no frame");
+			}
+			blockTicks = ticks.toArray();
+			blockPositions = positions.toArray();
+
+			seek(getFirstTick());
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException
+		         | IllegalArgumentException | IllegalStateException e) {
+			throw new IOException(file.path() + " is corrupted", e);
+		}
+	}
+
+	/**
+	 * Read the index written when the recording was closed
+	 * @return false if there is no index
+	 */
+	private boolean readIndex(LongArray ticks, LongArray positions) {
+		int end = data.limit();
+		if (end - data.position() < Recording.INDEX_TRAILER || data.getInt(end - 4) != Recording.INDEX_MAGIC) {
+			return false;
+		}
+
+		int count = data.getInt(end - Recording.INDEX_TRAILER);
+		int position = (int) data.getLong(end - Recording.INDEX_TRAILER + 4);
+		for (int i = 0; i < count; i++, position += Recording.INDEX_ENTRY) {
+			ticks.add(data.getLong(position));
+			positions.add(data.getLong(position + 8));
+		}
+		return true;
+	}
+
+	/**
+	 * Find the blocks of a recording without index by walking their headers,
+	 * a block cut short by the end of the file is ignored
+	 */
+	private void scanBlocks(LongArray ticks, LongArray positions) {
+		int position = data.position();
+		while (position + Recording.BLOCK_HEADER <= data.limit()) {
+			int next = position + Recording.BLOCK_HEADER + data.getInt(position + 16);
+			// a garbage length would loop forever or run past the end
+			if (next <= position || next > data.limit()) break;
+
+			ticks.add(data.getLong(position));
+			positions.add(position);
+			position = next;
+		}
+	}
+
+	/**
+	 * Get the frame of a tick
+	 * @param tick the tick, clamped to the recorded ones. A tick dropped while recording
+	 *             gets the last frame recorded before it.
+	 * @return the frame, reused by each call
+	 */
+	public int[] seek(long tick) {
+		int index = findBlock(tick);
+		if (index != currentBlock || tick < frameTick) {
+			inflateBlock(index);
+		}
+
+		long last = blockTicks[index] + currentBlockFrames - 1;
+		long target = Math.min(Math.max(tick, blockTicks[index]), last);
+		while (frameTick < target) {
+			Recording.decode(block, frame);
+			frameTick++;
+		}
+		return frame;
+	}
+
+	/**
+	 * Find the block holding a tick
+	 * @param tick the tick
+	 * @return the index of the last block starting at or before the tick, 0 if none
+	 */
+	private int findBlock(long tick) {
+		int index = Arrays.binarySearch(blockTicks, tick);
+		if (index >= 0) return index;
+
+		int insertion = -index - 1;
+		return Math.max(insertion - 1, 0);
+	}
+
+	/**
+	 * Inflate a block and decode its keyframe
+	 * @param index the block index
+	 */
+	private void inflateBlock(int index) {
+		int position = (int) blockPositions[index];
+		currentBlockFrames = data.getInt(position + 8);
+		int encodedLength = data.getInt(position + 12);
+		int deflatedLength = data.getInt(position + 16);
+
+		ByteBuffer source = data.duplicate();
+		source.position(position + Recording.BLOCK_HEADER);
+		source.get(deflated, 0, deflatedLength);
+
+		inflater.reset();
+		inflater.setInput(deflated, 0, deflatedLength);
+		try {
+			if (inflater.inflate(block.array(), 0, encodedLength) != encodedLength) {
+				throw new IllegalStateException("Block " + index + " is truncated");
+			}
+		} catch (DataFormatException e) {
+			throw new IllegalStateException("Block " + index + " is corrupted", e);
+		}
+		block.clear();
+		block.limit(encodedLength);
+
+		currentBlock = index;
+		frameTick = blockTicks[index];
+		Arrays.fill(frame, 0);
+		Recording.decode(block, frame);
+	}
+
+	/**
+	 * Get the tick of the first recorded frame
+	 * @return the tick
+	 */
+	public long getFirstTick() {
+		return blockTicks[0];
+	}
+
+	/**
+	 * Get the tick of the last recorded frame
+	 * @return the tick
+	 */
+	public long getLastTick() {
+		int last = blockTicks.length - 1;
+		int position = (int) blockPositions[last];
+		return blockTicks[last] + data.getInt(position + 8) - 1;
+	}
+
+	public int getTicksPerSecond() {
+		return ticksPerSecond;
+	}
+
+	public Pitch.Type getPitchType() {
+		return pitchType;
+	}
+
+	/**
+	 * Get the home team tactic file
+	 * @return the tactic file, e.g. tactics/4-2-4.xml
+	 */
+	public String getHomeTactic() {
+		return homeTactic;
+	}
+
+	/**
+	 * Get the away team tactic file
+	 * @return the tactic file, e.g. tactics/4-3-3.xml
+	 */
+	public String getAwayTactic() {
+		return awayTactic;
+	}
+
+	@Override
+	public void dispose() {
+		inflater.end();
+	}
+}
@@ -0,0 +1,262 @@
+package com.senegas.kickoff.replay;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.senegas.kickoff.entities.EntityStore;
+import com.senegas.kickoff.simulation.MatchSimulation;
+import com.senegas.kickoff.states.MatchState;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Layout of a recorded match, see {@link MatchRecorder}
+ * <p>
+ * Each tick is captured as a frame of integer fields: the match state, the ball and the
+ * players, quantized to the pixel (and to the pixel per second for the ball velocity).
+ * The file is laid out as follow, big endian:
+ * <pre>
+ * int     magic ('KORM')
+ * int     version
+ * int     ticks per second
+ * int     fields per frame
+ * short   pitch type length, followed by the pitch type name in UTF-8
+ * short   home tactic length, followed by the home tactic file in UTF-8
+ * short   away tactic length, followed by the away tactic file in UTF-8
+ * blocks, each one being
+ *   long  tick of the first frame
+ *   int   frames count
+ *   int   encoded length
+ *   int   deflated length
+ *   byte[] deflated frames
+ * index, written when the recording is closed
+ *   long  tick of the first frame and long position of each block
+ * int     blocks count
+ * long    index position
+ * int     index magic ('KORI')
+ * </pre>
+ * A frame is encoded as the difference with the previous frame of its block, the first frame
+ * of a block with an all zero frame, so each block can be decoded on its own. The changed
+ * fields are written as pairs of varints, the count of unchanged fields skipped and the
+ * zigzag encoded delta, the frame ending with the count of the trailing unchanged fields.
+ * <p>
+ * The first frame of each block is thus a keyframe, and the index at the end of the file
+ * locates the block of any tick without reading the blocks. A recording which was not closed
+ * has no index, its blocks are then found by walking their headers.
+ * @author Sébastien Sénégas
+ *
+ */
+public final class Recording {
+	/**
+	 * Directory of the recordings in the external storage (the user home on desktop), out of
+	 * the working directory which is the assets directory when run from Gradle
+	 */
+	public static final String DIRECTORY = ".kickoff/replays";
+	public static final String EXTENSION = "kor";
+	public static final int VERSION = 2;
+
+	static final int MAGIC = 0x4B4F524D; // 'KORM'
+	static final int INDEX_MAGIC = 0x4B4F5249; // 'KORI'
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/** Match state ordinal plus one, 0 before the match started */
+	public static final int STATE = 0;
+	/** Ball x, y, z and velocity */
+	public static final int BALL = 1;
+	public static final int BALL_FIELDS = 6;
+	/** Fields of the first player, home team first */
+	public static final int PLAYERS = BALL + BALL_FIELDS;
+	public static final int PLAYER_FIELDS = 4;
+	/** Offsets of a player's fields */
+	public static final int X = 0, Y = 1, Z = 2, VX = 3, VY = 4, VZ = 5;
+	public static final int DIRECTION = 2, FRAME = 3;
+	public static final int FIELDS = PLAYERS + EntityStore.PLAYER_COUNT * PLAYER_FIELDS;
+
+	/** Frames per block, a block is also cut short when its buffer is nearly full */
+	static final int BLOCK_TICKS = 256;
+	/** Largest encoded block */
+	static final int BLOCK_CAPACITY = 32 * 1024;
+	/** Largest deflated block, deflate slightly expands what it cannot compress */
+	static final int DEFLATED_CAPACITY = BLOCK_CAPACITY + BLOCK_CAPACITY / 8 + 64;
+	/** Size of the block header */
+	static final int BLOCK_HEADER = 20;
+	/** Size of an index entry */
+	static final int INDEX_ENTRY = 16;
+	/** Size of the index trailer, blocks count, index position and magic */
+	static final int INDEX_TRAILER = 16;
+	/** Largest encoded frame, two 5 bytes varints per field and the trailing count */
+	static final int MAX_FRAME_BYTES = FIELDS * 10 + 5;
+
+	private Recording() {}
+
+	/**
+	 * Get a new recording file, named after the current time
+	 * @return the file in the {@link #DIRECTORY}
+	 */
+	public static FileHandle newFile() {
+		String name = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.ROOT).format(new Date());
+		return Gdx.files.external(DIRECTORY).child(name + "." + EXTENSION);
+	}
+
+	/**
+	 * Get the most recent recording
+	 * @return the file, null if there is none
+	 */
+	public static FileHandle latestFile() {
+		FileHandle latest = null;
+		for (FileHandle file : Gdx.files.external(DIRECTORY).list(EXTENSION)) {
+			// the names sort by date
+			if (latest == null || file.name().compareTo(latest.name()) > 0) {
+				latest = file;
+			}
+		}
+		return latest;
+	}
+
+	/**
+	 * Capture the current tick of a match
+	 * @param simulation the match
+	 * @param frame the frame receiving the {@link #FIELDS} fields
+	 */
+	public static void capture(MatchSimulation simulation, int[] frame) {
+		EntityStore store = simulation.getStore();
+		MatchState state = simulation.getState();
+		frame[STATE] = state != null ? state.ordinal() + 1 : 0;
+
+		int ball = EntityStore.BALL;
+		frame[BALL + X] = Math.round(store.x[ball]);
+		frame[BALL + Y] = Math.round(store.y[ball]);
+		frame[BALL + Z] = Math.round(store.z[ball]);
+		frame[BALL + VX] = Math.round(store.vx[ball]);
+		frame[BALL + VY] = Math.round(store.vy[ball]);
+		frame[BALL + VZ] = Math.round(store.vz[ball]);
+
+		for (int i = 0, field = PLAYERS; i < EntityStore.PLAYER_COUNT; i++, field += PLAYER_FIELDS) {
+			frame[field + X] = Math.round(store.x[i]);
+			frame[field + Y] = Math.round(store.y[i]);
+			frame[field + DIRECTION] = store.direction[i];
+			frame[field + FRAME] = store.animationFrame[i];
+		}
+	}
+
+	/**
+	 * Set the players and the ball to a recorded frame
+	 * @param frame the frame
+	 * @param store the entity store receiving the frame
+	 * @param interpolate true to keep the current positions as the previous tick ones,
+	 *                    false when jumping to the frame
+	 */
+	public static void apply(int[] frame, EntityStore store, boolean interpolate) {
+		int ball = EntityStore.BALL;
+		store.previousX[ball] = interpolate ? store.x[ball] : frame[BALL + X];
+		store.previousY[ball] = interpolate ? store.y[ball] : frame[BALL + Y];
+		store.previousZ[ball] = interpolate ? store.z[ball] : frame[BALL + Z];
+		store.x[ball] = frame[BALL + X];
+		store.y[ball] = frame[BALL + Y];
+		store.z[ball] = frame[BALL + Z];
+		store.vx[ball] = frame[BALL + VX];
+		store.vy[ball] = frame[BALL + VY];
+		store.vz[ball] = frame[BALL + VZ];
+
+		for (int i = 0, field = PLAYERS; i < EntityStore.PLAYER_COUNT; i++, field += PLAYER_FIELDS) {
+			store.previousX[i] = interpolate ? store.x[i] : frame[field + X];
+			store.previousY[i] = interpolate ? store.y[i] : frame[field + Y];
+			store.x[i] = frame[field + X];
+			store.y[i] = frame[field + Y];
+			store.direction[i] = frame[field + DIRECTION];
+			store.animationFrame[i] = frame[field + FRAME];
+		}
+	}
+
+	/**
+	 * Get the match state of a recorded frame
+	 * @param frame the frame
+	 * @return the state, null before the match started
+	 */
+	public static MatchState getState(int[] frame) {
+		return frame[STATE] == 0 ? null : MatchState.values()[frame[STATE] - 1];
+	}
+
+	/**
+	 * Encode a frame as its difference with the previous one
+	 * @param previous the previous frame, all zero for the first frame of a block
+	 * @param frame the frame
+	 * @param out the buffer receiving at most {@link #MAX_FRAME_BYTES} bytes
+	 */
+	static void encode(int[] previous, int[] frame, ByteBuffer out) {
+		int skipped = 0;
+		for (int i = 0; i < FIELDS; i++) {
+			int delta = frame[i] - previous[i];
+			if (delta == 0) {
+				skipped++;
+				continue;
+			}
+
+			putVarint(out, skipped);
+			putVarint(out, (delta << 1) ^ (delta >> 31));
+			skipped = 0;
+		}
+		putVarint(out, skipped);
+	}
+
+	/**
+	 * Decode the next frame of a block
+	 * @param in the encoded frames, positioned on the frame
+	 * @param frame the previous frame, updated in place
+	 */
+	static void decode(ByteBuffer in, int[] frame) {
+		int i = getVarint(in);
+		while (i < FIELDS) {
+			int zigzag = getVarint(in);
+			frame[i] += (zigzag >>> 1) ^ -(zigzag & 1);
+			i += 1 + getVarint(in);
+		}
+	}
+
+	private static int getVarint(ByteBuffer in) {
+		int value = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte b = in.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) return value;
+		}
+	}
+
+	private static void putVarint(ByteBuffer out, int value) {
+		while ((value & ~0x7F) != 0) {
+			out.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.put((byte) value);
+	}
+
+	/**
+	 * Write the file header
+	 * @param simulation the recorded match
+	 * @param out the buffer receiving the header
+	 */
+	static void putHeader(MatchSimulation simulation, ByteBuffer out) {
+		out.putInt(MAGIC);
+		out.putInt(VERSION);
+		out.putInt(simulation.getTicksPerSecond());
+		out.putInt(FIELDS);
+		putString(out, simulation.getPitchType().name());
+		putString(out, simulation.getHomeTeam().getTactic().getDefinition().getFileName());
+		putString(out, simulation.getAwayTeam().getTactic().getDefinition().getFileName());
+	}
+
+	static String getString(ByteBuffer in) {
+		byte[] bytes = new byte[in.getShort()];
+		in.get(bytes);
+		return new String(bytes, UTF8);
+	}
+
+	private static void putString(ByteBuffer out, String value) {
+		byte[] bytes = value.getBytes(UTF8);
+		out.putShort((short) bytes.length);
+		out.put(bytes);
+	}
+}
@@ -0,0 +1,116 @@
+package com.senegas.kickoff.screens;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
+import com.senegas.kickoff.Assets;
+import com.senegas.kickoff.KickOff;
+import com.senegas.kickoff.net.LockstepConfig;
+import com.senegas.kickoff.pitches.Pitch;
+import com.senegas.kickoff.simulation.MatchSimulation;
+
+import java.io.IOException;
+
+/**
+ * Shows the loading progress of the match assets, then starts the match once they are all resident
+ *
+ * @author Sébastien Sénégas
+ */
+public class LoadingScreen implements Screen {
+    private static final float BAR_WIDTH = 400;
+    private static final float BAR_HEIGHT = 16;
+    /** Time given to the asset manager per frame in milliseconds, keeps the screen responsive */
+    private static final int UPDATE_BUDGET = 15;
+
+    private final KickOff game;
+    private final AssetManager assets;
+    private final Pitch.Type pitchType;
+    private ShapeRenderer shapeRenderer;
+
+    /**
+     * Constructor
+     * @param game the game
+     * @param pitchType the pitch of the match to start
+     */
+    public LoadingScreen(KickOff game, Pitch.Type pitchType) {
+        this.game = game;
+        this.assets = game.getAssets();
+        this.pitchType = pitchType;
+    }
+
+    @Override
+    public void show() {
+        shapeRenderer = new ShapeRenderer();
+        // held until the match took its own reference, see hide()
+        Assets.loadMatch(assets, pitchType);
+    }
+
+    @Override
+    public void render(float delta) {
+        if (assets.update(UPDATE_BUDGET)) {
+            game.setScreen(createMatch());
+            return;
+        }
+
+        Gdx.gl.glClearColor(0, 0, 0, 1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+
+        float x = (Gdx.graphics.getWidth() - BAR_WIDTH) / 2;
+        float y = (Gdx.graphics.getHeight() - BAR_HEIGHT) / 2;
+
+        shapeRenderer.begin(ShapeType.Filled);
+        shapeRenderer.setColor(Color.DARK_GRAY);
+        shapeRenderer.rect(x, y, BAR_WIDTH, BAR_HEIGHT);
+        shapeRenderer.setColor(Color.WHITE);
+        shapeRenderer.rect(x, y, BAR_WIDTH * assets.getProgress(), BAR_HEIGHT);
+        shapeRenderer.end();
+    }
+
+    /**
+     * Create the match, networked when the game has lockstep settings
+     * @return the match screen
+     */
+    private Match createMatch() {
+        LockstepConfig lockstep = game.getLockstep();
+        if (lockstep != null) {
+            try {
+                return new Match(assets, lockstep.createSimulation(pitchType), lockstep.open(), lockstep.isRollback());
+            } catch (IOException e) {
+                Gdx.app.error("LoadingScreen", "Cannot open the lockstep session, playing locally", e);
+            }
+        }
+
+        return new Match(assets, new MatchSimulation(pitchType));
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        shapeRenderer.getProjectionMatrix().setToOrtho2D(0, 0, width, height);
+    }
+
+    @Override
+    public void pause() {
+    }
+
+    @Override
+    public void resume() {
+    }
+
+    @Override
+    public void hide() {
+        dispose();
+    }
+
+    @Override
+    public void dispose() {
+        if (shapeRenderer == null) return;
+
+        shapeRenderer.dispose();
+        shapeRenderer = null;
+        Assets.unloadMatch(assets, pitchType);
+    }
+}
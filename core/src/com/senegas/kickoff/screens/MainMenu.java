@@ -1,8 +1,9 @@
 package com.senegas.kickoff.screens;
 
-import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
@@ -13,15 +14,38 @@ import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
 import com.badlogic.gdx.scenes.scene2d.ui.TextButton.TextButtonStyle;
 import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
+import com.senegas.kickoff.Assets;
+import com.senegas.kickoff.KickOff;
+import com.senegas.kickoff.pitches.Pitch;
+import com.senegas.kickoff.replay.Recording;
+
+import java.io.IOException;
 
 public class MainMenu implements Screen {
 	
+	/** Pitch of the match started by PLAY */
+	private static final Pitch.Type PITCH_TYPE = Pitch.Type.PLAYERMANAGER;
+	
+	private final KickOff game;
+	private final AssetManager assets;
 	private Stage stage;
 	private TextureAtlas atlas;
 	private Skin skin;
 	private Table table;
 	private TextButton buttonPlay;
+	private TextButton buttonReplay;
 	private BitmapFont white;
+	/** True while the menu holds a reference on the match assets, which keeps them resident between matches */
+	private boolean matchPreloaded;
+
+	/**
+	 * Constructor
+	 * @param game the game
+	 */
+	public MainMenu(KickOff game) {
+		this.game = game;
+		this.assets = game.getAssets();
+	}
 
 	@Override
 	public void show() {
@@ -29,13 +53,17 @@ public class MainMenu implements Screen {
 		
 		Gdx.input.setInputProcessor(stage);
 		
-		atlas = new TextureAtlas("ui/button.pack");
+		// the menu itself is needed right away
+		Assets.loadMenu(assets);
+		assets.finishLoadingAsset(Assets.UI_ATLAS);
+		assets.finishLoadingAsset(Assets.WHITE_FONT);
+		atlas = assets.get(Assets.UI_ATLAS, TextureAtlas.class);
 		skin = new Skin(atlas);
 		
 		table = new Table(skin);
 		table.setBounds(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
 		
-		white = new BitmapFont(Gdx.files.internal("font/white.fnt"), false);
+		white = assets.get(Assets.WHITE_FONT, BitmapFont.class);
 		
 		TextButtonStyle textButtonStyle = new TextButtonStyle();
 		textButtonStyle.up = skin.getDrawable("button.up");
@@ -48,18 +76,46 @@ public class MainMenu implements Screen {
 		buttonPlay.addListener(new ClickListener() {
 			@Override
 			public void clicked(InputEvent event, float x, float y) {
-				((Game) Gdx.app.getApplicationListener()).setScreen(new Match());
+				game.setScreen(new LoadingScreen(game, PITCH_TYPE));
 			}
 		});
 		buttonPlay.pad(15);
 		
 		table.add(buttonPlay);
+
+		// replays the last recorded match
+		final FileHandle recording = Recording.latestFile();
+		if (recording != null) {
+			buttonReplay = new TextButton("REPLAY", textButtonStyle);
+			buttonReplay.addListener(new ClickListener() {
+				@Override
+				public void clicked(InputEvent event, float x, float y) {
+					try {
+						game.setScreen(new ReplayScreen(game, MainMenu.this, recording));
+					} catch (IOException e) {
+						Gdx.app.error("MainMenu", "Cannot replay " + recording.path(), e);
+					}
+				}
+			});
+			buttonReplay.pad(15);
+			
+			table.row();
+			table.add(buttonReplay).padTop(10);
+		}
 		table.debug();
 		stage.addActor(table);
+		
+		// the match assets load in the background while the menu is showing
+		if (!matchPreloaded) {
+			Assets.loadMatch(assets, PITCH_TYPE);
+			matchPreloaded = true;
+		}
 	}
 
 	@Override
 	public void render(float delta) {
+		assets.update();
+		
 		Gdx.gl.glClearColor(0, 0, 0, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
         
@@ -84,13 +140,17 @@ public class MainMenu implements Screen {
 
 	@Override
 	public void hide() {
-
+		stage.dispose();
+		// the atlas and the font belong to the asset manager, so the skin is not disposed
+		Assets.unloadMenu(assets);
 	}
 
 	@Override
 	public void dispose() {
-		stage.dispose();
-		skin.dispose();
+		if (matchPreloaded) {
+			Assets.unloadMatch(assets, PITCH_TYPE);
+			matchPreloaded = false;
+		}
 	}
 
 }
@@ -3,105 +3,202 @@ package com.senegas.kickoff.screens;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.Screen;
-import com.badlogic.gdx.ai.fsm.DefaultStateMachine;
-import com.badlogic.gdx.ai.fsm.StateMachine;
+import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.math.Vector3;
+import com.senegas.kickoff.Assets;
 import com.senegas.kickoff.entities.Ball;
 import com.senegas.kickoff.entities.Player;
-import com.senegas.kickoff.entities.Player.Direction;
 import com.senegas.kickoff.entities.Team;
-import com.senegas.kickoff.pitches.FootballDimensions;
+import com.senegas.kickoff.net.LockstepSession;
+import com.senegas.kickoff.net.RollbackSession;
 import com.senegas.kickoff.pitches.Pitch;
 import com.senegas.kickoff.pitches.PitchFactory;
 import com.senegas.kickoff.pitches.Scanner;
+import com.senegas.kickoff.renderers.BallRenderer;
+import com.senegas.kickoff.renderers.DebugRenderer;
+import com.senegas.kickoff.renderers.PitchRenderer;
+import com.senegas.kickoff.renderers.ProfilerHud;
+import com.senegas.kickoff.renderers.SpriteQueue;
+import com.senegas.kickoff.renderers.TeamRenderer;
+import com.senegas.kickoff.replay.MatchRecorder;
+import com.senegas.kickoff.replay.Recording;
+import com.senegas.kickoff.simulation.Controls;
+import com.senegas.kickoff.simulation.MatchSimulation;
 import com.senegas.kickoff.states.MatchState;
+import com.senegas.kickoff.telemetry.TelemetryExporter;
 import com.senegas.kickoff.utils.CameraHelper;
+import com.senegas.kickoff.utils.FrameProfiler;
+import com.senegas.kickoff.utils.FrameProfiler.Phase;
 import com.senegas.kickoff.utils.PitchUtils;
 
+import java.io.IOException;
+
 /**
- * Match
+ * Match screen, renders a {@link MatchSimulation}
+ * <p>
+ * The match takes its own reference on the match assets and releases it when disposed,
+ * it expects them to be resident already (see {@link LoadingScreen}).
  *
  * @author Sébastien Sénégas
  */
 public class Match implements Screen {
-    private OrthogonalTiledMapRenderer renderer;
+    private final AssetManager assets;
     private OrthographicCamera camera;
     private BitmapFont font;
     private SpriteBatch batch;
+    private SpriteBatch worldBatch;
+
+    private MatchSimulation simulation;
+    /** Exchanges the controls with the other peer of a networked match, null when playing locally */
+    private final LockstepSession session;
+    /** Predicts the controls of the other peer instead of waiting for them, null in lockstep */
+    private final RollbackSession rollback;
+    /** True while the simulation waits for the controls of the other peer */
+    private boolean waiting;
+    private float accumulator;
+    private float alpha;
+    private Vector3 ballPosition = new Vector3();
+    private MatchState renderedState;
+    /** Archives the match, null if the recording could not be started */
+    private MatchRecorder recorder;
+    /** Exports the positions for analysis while toggled on, null otherwise */
+    private TelemetryExporter telemetry;
 
     private Pitch pitch;
     private Scanner scanner;
-    private Ball ball;
-    private Team home;
-    private Team away;
+    private PitchRenderer pitchRenderer;
+    private SpriteQueue spriteQueue = new SpriteQueue();
+    private BallRenderer ballRenderer;
+    private TeamRenderer homeRenderer;
+    private TeamRenderer awayRenderer;
 
     public CameraHelper cameraHelper;
-    public ShapeRenderer shapeRenderer;
+    private DebugRenderer debugRenderer;
+    private final FrameProfiler profiler = new FrameProfiler();
+    private ProfilerHud profilerHud;
+    private boolean showProfiler;
+    private final StringBuilder debugText = new StringBuilder();
+    private final Vector2 ballLocation = new Vector2();
 
-    private StateMachine<Match, MatchState> matchFsm;
     public Sound crowd;
     public Sound whistle;
 
     private static final boolean DEBUG = true;
+    /** Maximum number of simulation ticks per rendered frame, the simulation slows down beyond that */
+    private static final int MAX_STEPS_PER_FRAME = 5;
 
 //	private static float angx = 0;
 //	private static float angy = 0;
 //	private static float incx = 0.001f;
 //	private static float incy = 0.0013f;
 
-    public Match() {
-        pitch = PitchFactory.getInstance().make(Pitch.Type.PLAYERMANAGER);
-        renderer = new OrthogonalTiledMapRenderer(pitch.getTiledMap());
+    public Match(AssetManager assets) {
+        this(assets, new MatchSimulation(Pitch.Type.PLAYERMANAGER));
+    }
+
+    public Match(AssetManager assets, MatchSimulation simulation) {
+        this(assets, simulation, null);
+    }
+
+    /**
+     * Constructor
+     * @param assets the asset manager
+     * @param simulation the match
+     * @param session the session with the other peer of a networked match, null to play locally.
+     *                The match closes it when disposed.
+     */
+    public Match(AssetManager assets, MatchSimulation simulation, LockstepSession session) {
+        this(assets, simulation, session, false);
+    }
+
+    /**
+     * Constructor
+     * @param assets the asset manager
+     * @param simulation the match
+     * @param session the session with the other peer of a networked match, null to play locally.
+     *                The match closes it when disposed.
+     * @param rollback true to predict the controls of the other peer and roll back on a
+     *                 misprediction, false to wait for them
+     */
+    public Match(AssetManager assets, MatchSimulation simulation, LockstepSession session, boolean rollback) {
+        this.assets = assets;
+        this.simulation = simulation;
+        this.session = session;
+        this.rollback = session != null && rollback ? new RollbackSession(session, simulation) : null;
+        if (this.rollback != null) {
+            // only the confirmed ticks are recorded, the predicted ones may be stepped again
+            this.rollback.setConfirmedTickListener(new RollbackSession.ConfirmedTickListener() {
+                @Override
+                public void confirmed(long tick, int[] frame, float[] positions) {
+                    if (recorder != null) recorder.record(tick, frame);
+                    if (telemetry != null) telemetry.record(tick, positions);
+                }
+            });
+        }
+
+        Assets.loadMatch(assets, simulation.getPitchType());
+        assets.finishLoading(); // immediate when the assets are already resident
+
+        pitch = PitchFactory.getInstance().make(simulation.getPitchType());
+        pitchRenderer = new PitchRenderer(assets.get(pitch.getFileName(), TiledMap.class));
 
         camera = new OrthographicCamera();
         //camera.setToOrtho(true);
         cameraHelper = new CameraHelper();
         cameraHelper.setZoom(.45f);
 
-        Vector2 centerSpot = Pitch.getCenterSpot();
-        ball = new Ball(centerSpot.x, centerSpot.y, 160);
-        home = new Team(this, "TeamA", Direction.NORTH);
-        away = new Team(this, "TeamB", Direction.SOUTH);
+        ballRenderer = new BallRenderer(assets);
+        homeRenderer = new TeamRenderer(simulation.getHomeTeam(), assets);
+        awayRenderer = new TeamRenderer(simulation.getAwayTeam(), assets);
 
-        scanner = new Scanner(this);
+        scanner = new Scanner(simulation);
 
-        crowd =  Gdx.audio.newSound(Gdx.files.internal("sounds/crowd.ogg"));
-        whistle = Gdx.audio.newSound(Gdx.files.internal("sounds/whistle.ogg"));
+        crowd = assets.get(Assets.CROWD, Sound.class);
+        whistle = assets.get(Assets.WHISTLE, Sound.class);
         //cameraController = new OrthoCamController(camera);
-        //Gdx.input.setInputProcessor(player);
 
         font = new BitmapFont();
         batch = new SpriteBatch();
-        matchFsm = new DefaultStateMachine<Match, MatchState>(this);
-        shapeRenderer = new ShapeRenderer();
+        worldBatch = new SpriteBatch();
+        debugRenderer = new DebugRenderer();
+        profilerHud = new ProfilerHud(profiler);
+        simulation.setProfiler(profiler);
     }
 
     @Override
     public void show() {
-        matchFsm.changeState(MatchState.INTRODUCTION);
+        simulation.start();
+
+        try {
+            recorder = new MatchRecorder(Recording.newFile(), simulation);
+        } catch (IOException e) {
+            Gdx.app.error("Match", "Cannot record the match", e);
+        }
     }
 
     @Override
     public void render(float deltaTime) {
+        profiler.begin(Phase.FRAME);
         Gdx.gl.glClearColor(0, 0, 0, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
+        profiler.begin(Phase.INPUT);
         handleInput();
+        profiler.end(Phase.INPUT);
 
-        matchFsm.update();
-
-        updateEntities(deltaTime);
-
-        cameraHelper.update(deltaTime);
+        // the simulation times its own phases
+        stepSimulation(deltaTime);
 
-        checkCollisions();
+        profiler.begin(Phase.CAMERA);
+        updateCamera(deltaTime);
 
 //        boolean gameIsRunning = true;
 //
@@ -122,63 +219,206 @@ public class Match implements Screen {
         cameraHelper.applyTo(camera);
 
         camera.update();
-        renderer.setView(camera);
-        renderer.render();
-
-        renderer.getBatch().begin();
-        home.draw(renderer.getBatch());
-        away.draw(renderer.getBatch());
-        ball.draw(renderer.getBatch());
-        renderer.getBatch().end();
-
-        scanner.draw();
-
+        worldBatch.setProjectionMatrix(camera.combined);
+        profiler.end(Phase.CAMERA);
+
+        profiler.begin(Phase.MAP);
+        worldBatch.begin();
+        pitchRenderer.draw(worldBatch);
+        // issue the pitch draw call now, otherwise it goes out with the first sprite and counts as SPRITES
+        worldBatch.flush();
+        profiler.end(Phase.MAP);
+        profiler.begin(Phase.SPRITES);
+        // the players and the ball all come from the sprites atlas, a single texture,
+        // so they add only one draw call after the pitch
+        homeRenderer.draw(spriteQueue, alpha);
+        awayRenderer.draw(spriteQueue, alpha);
+        ballRenderer.draw(spriteQueue, getBall(), alpha);
+        spriteQueue.draw(worldBatch);
+        worldBatch.end();
+        profiler.end(Phase.SPRITES);
+
+        profiler.begin(Phase.SCANNER);
+        scanner.draw(deltaTime);
+        profiler.end(Phase.SCANNER);
+
+        profiler.begin(Phase.DEBUG);
         if (DEBUG) {
             displayDebugInfo();
         }
+        if (showProfiler) {
+            batch.begin();
+            profilerHud.draw(batch, font, 10, Gdx.graphics.getHeight() - 200);
+            batch.end();
+        }
+        profiler.end(Phase.DEBUG);
+
+        profiler.end(Phase.FRAME);
+        profiler.endFrame();
     }
 
     private void displayDebugInfo() {
-        this.home.showDebug();
-        this.ball.showPosition(this.camera);
+        Ball ball = getBall();
 
-        Player player = this.home.getPlayers().get(0);
-        Vector2 ballLocation = PitchUtils.globalToPitch(ball.getPosition().x, ball.getPosition().y);
+        this.homeRenderer.showDebug(this.debugRenderer, ball);
+        this.ballRenderer.showPosition(this.debugRenderer, ball);
+        this.debugRenderer.flush(this.camera.combined);
 
+        Player player = getHomeTeam().getPlayers().get(0);
+        PitchUtils.globalToPitch(ball.getPosition().x, ball.getPosition().y, ballLocation);
+
+        // reused builder, the text changes every frame
         batch.begin();
-        font.draw(batch, "FPS: " + Gdx.graphics.getFramesPerSecond(), 10, 20);
-        font.draw(batch, "Player: " + (int) player.getPosition().x + ", " +
-                                          (int) player.getPosition().y, 10, 40);
-
-        font.draw(batch, "Ball: " + (int) ballLocation.x + ", " +
-                                        (int) ballLocation.y + ", " +
-                                        (int) ball.getPosition().z, 10, 60);
-        font.draw(batch, this.home.getTactic().getName(), 10, 80);
-        font.draw(batch, this.matchFsm.getCurrentState().toString(), 10, 100);
+        debugText.setLength(0);
+        debugText.append("FPS: ").append(Gdx.graphics.getFramesPerSecond());
+        font.draw(batch, debugText, 10, 20);
+        debugText.setLength(0);
+        debugText.append("Player: ").append((int) player.getPosition().x).append(", ")
+                 .append((int) player.getPosition().y);
+        font.draw(batch, debugText, 10, 40);
+
+        debugText.setLength(0);
+        debugText.append("Ball: ").append((int) ballLocation.x).append(", ")
+                 .append((int) ballLocation.y).append(", ")
+                 .append((int) ball.getPosition().z);
+        font.draw(batch, debugText, 10, 60);
+        font.draw(batch, getHomeTeam().getTactic().getName(), 10, 80);
+        font.draw(batch, simulation.getState().toString(), 10, 100);
+        if (waiting) {
+            font.draw(batch, "Waiting for the other player", 10, 120);
+        }
+        if (rollback != null) {
+            debugText.setLength(0);
+            debugText.append("Rollbacks: ").append(rollback.getRollbacks()).append(" (")
+                     .append(rollback.getRolledBackTicks()).append(" ticks)");
+            font.draw(batch, debugText, 10, 140);
+        }
         batch.end();
     }
 
-    private void updateEntities(float deltaTime) {
-        home.update(deltaTime);
-        away.update(deltaTime);
-        ball.update(deltaTime);
+    /**
+     * Advance the simulation by as many fixed ticks as the elapsed time allows
+     * and compute the interpolation factor used to draw between two ticks
+     * @param deltaTime
+     */
+    private void stepSimulation(float deltaTime) {
+        float tickDuration = simulation.getTickDuration();
+
+        accumulator += deltaTime;
+        receiveControls();
+        if (rollback != null) rollback.synchronize();
+        int steps = 0;
+        waiting = false;
+        while (accumulator >= tickDuration && steps < MAX_STEPS_PER_FRAME) {
+            if (!stepTick()) {
+                waiting = true;
+                break;
+            }
+            accumulator -= tickDuration;
+            steps++;
+        }
+        sendControls();
+        if (accumulator >= tickDuration) {
+            // too far behind, drop the remaining time instead of spiralling
+            accumulator = 0;
+        }
+
+        alpha = accumulator / tickDuration;
+        getBall().getInterpolatedPosition(alpha, ballPosition);
     }
 
-    public StateMachine getFSM() {
-        return this.matchFsm;
+    /**
+     * Step the simulation by one tick with the controls of both sides, the local keyboard
+     * controlling the home team when playing locally
+     * @return false if the tick waits for the controls of the other peer
+     */
+    private boolean stepTick() {
+        int controls = pollControls();
+        if (session == null) {
+            simulation.step(controls, 0);
+        } else if (rollback != null) {
+            return rollback.advance(controls);
+        } else {
+            long tick = simulation.getTick();
+            session.submit(tick, controls);
+            if (!session.isReady(tick)) return false;
+
+            simulation.step(session.getControls(tick, Controls.HOME), session.getControls(tick, Controls.AWAY));
+        }
+
+        if (recorder != null) recorder.record(simulation);
+        if (telemetry != null) telemetry.record(simulation);
+        return true;
     }
 
     /**
-     * Check collisions between players and the ball
+     * Sample the local keyboard
+     * @return the local controls, see {@link Controls}
      */
-    private void checkCollisions() {
-        for (Player player : home.getPlayers()) {
-            if (player.getBounds().contains(ball.getPosition().x, ball.getPosition().y)) {
-                if (ball.getPosition().z < player.height() / FootballDimensions.CM_PER_PIXEL) { //!Reimp move constant elsewhere
-                    ball.applyForce(player.speed() * 1.125f + 30.0f, player.getDirection());
-                }
+    private int pollControls() {
+        int controls = 0;
+        if (Gdx.input.isKeyPressed(Input.Keys.UP)) controls |= Controls.UP;
+        if (Gdx.input.isKeyPressed(Input.Keys.DOWN)) controls |= Controls.DOWN;
+        if (Gdx.input.isKeyPressed(Input.Keys.LEFT)) controls |= Controls.LEFT;
+        if (Gdx.input.isKeyPressed(Input.Keys.RIGHT)) controls |= Controls.RIGHT;
+        if (Gdx.input.isKeyPressed(Input.Keys.SPACE)) controls |= Controls.FIRE;
+        return controls;
+    }
+
+    private void receiveControls() {
+        if (session == null) return;
+
+        try {
+            session.receive();
+        } catch (IOException e) {
+            Gdx.app.error("Match", "Cannot receive the controls", e);
+        }
+    }
+
+    private void sendControls() {
+        if (session == null) return;
+
+        try {
+            session.send();
+        } catch (IOException e) {
+            Gdx.app.error("Match", "Cannot send the controls", e);
+        }
+    }
+
+    /**
+     * Move the camera according to the match state
+     * @param deltaTime
+     */
+    private void updateCamera(float deltaTime) {
+        MatchState state = simulation.getState();
+        if (state != renderedState) {
+            renderedState = state;
+            switch (state) {
+                case INTRODUCTION:
+                    crowd.play(0.2f);
+                    followBall();
+                    cameraHelper.setTarget(new Vector2(352, (int)(Pitch.PITCH_HEIGHT_IN_PX / 2 + Pitch.OUTER_TOP_EDGE_Y + 16)));
+                    break;
+                case PREPAREFORKICKOFF:
+                    cameraHelper.setTarget(Pitch.getCenterSpot());
+                    break;
+                case INPLAY:
+                    //whistle.play(0.2f);
+                    cameraHelper.setTarget(null);
+                    break;
             }
         }
+
+        if (!cameraHelper.hasTarget()) {
+            followBall();
+        }
+
+        cameraHelper.update(deltaTime);
+    }
+
+    private void followBall() {
+        cameraHelper.setPosition(MathUtils.clamp(ballPosition.x, camera.viewportWidth / 2 * camera.zoom, Pitch.WIDTH - camera.viewportWidth / 2 * camera.zoom),
+                                 MathUtils.clamp(ballPosition.y, camera.viewportHeight / 2 * camera.zoom, Pitch.HEIGHT - camera.viewportHeight / 2 * camera.zoom));
     }
 
     @Override
@@ -187,16 +427,20 @@ public class Match implements Screen {
         camera.viewportWidth = width;
     }
 
+    public MatchSimulation getSimulation() {
+        return simulation;
+    }
+
     public Team getHomeTeam() {
-        return home;
+        return simulation.getHomeTeam();
     }
 
     public Team getAwayTeam(){
-        return away;
+        return simulation.getAwayTeam();
     }
 
     public Ball getBall() {
-        return ball;
+        return simulation.getBall();
     }
 
     public Pitch pitch() {
@@ -222,15 +466,68 @@ public class Match implements Screen {
 
     @Override
     public void dispose() {
-        renderer.dispose();
-        pitch.dispose();
-        home.dispose();
-        away.dispose();
-        ball.dispose();
-        ball.getTexture().dispose();
-        shapeRenderer.dispose();
-        crowd.dispose();
-        whistle.dispose();
+        if (pitchRenderer == null) return;
+
+        pitchRenderer.dispose();
+        pitchRenderer = null;
+        scanner.dispose();
+        simulation.setProfiler(null);
+        stopRecording();
+        stopTelemetry();
+        if (session != null) {
+            try {
+                session.close();
+            } catch (IOException e) {
+                Gdx.app.error("Match", "Cannot close the lockstep session", e);
+            }
+        }
+        debugRenderer.dispose();
+        batch.dispose();
+        worldBatch.dispose();
+        font.dispose();
+        // the textures, sounds and map stay resident while other screens reference them
+        Assets.unloadMatch(assets, simulation.getPitchType());
+    }
+
+    /**
+     * Close the recording, waiting for its last ticks to be written
+     */
+    private void stopRecording() {
+        if (recorder == null) return;
+
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            Gdx.app.error("Match", "Cannot write " + recorder.getFile().path(), e);
+        }
+        recorder = null;
+    }
+
+    /**
+     * Start or stop exporting the telemetry of the following ticks
+     */
+    private void toggleTelemetry() {
+        if (telemetry != null) {
+            stopTelemetry();
+            return;
+        }
+
+        try {
+            telemetry = new TelemetryExporter(TelemetryExporter.newFile(), simulation, 1);
+        } catch (IOException e) {
+            Gdx.app.error("Match", "Cannot export the telemetry", e);
+        }
+    }
+
+    private void stopTelemetry() {
+        if (telemetry == null) return;
+
+        try {
+            telemetry.close();
+        } catch (IOException e) {
+            Gdx.app.error("Match", "Cannot write " + telemetry.getFile().path(), e);
+        }
+        telemetry = null;
     }
 
     private void handleInput() {
@@ -240,18 +537,26 @@ public class Match implements Screen {
         if (Gdx.input.isKeyPressed(Input.Keys.I)) {
             cameraHelper.setZoom(cameraHelper.getZoom() - 0.02f);
         }
-        if (Gdx.input.isKeyJustPressed(Input.Keys.S)) {
+        Ball ball = getBall();
+        // the debug kicks bypass the controls, so they would desynchronise a networked match
+        if (session == null && Gdx.input.isKeyJustPressed(Input.Keys.S)) {
             ball.applyForce(400, 6);
         }
-        if (Gdx.input.isKeyJustPressed(Input.Keys.D)) {
+        if (session == null && Gdx.input.isKeyJustPressed(Input.Keys.D)) {
             ball.applyForce(400, 2);
         }
-        if (Gdx.input.isKeyJustPressed(Input.Keys.E)) {
+        if (session == null && Gdx.input.isKeyJustPressed(Input.Keys.E)) {
             ball.applyForce(400, 0);
         }
-        if (Gdx.input.isKeyJustPressed(Input.Keys.X)) {
+        if (session == null && Gdx.input.isKeyJustPressed(Input.Keys.X)) {
             ball.applyForce(400, 4);
         }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.P)) {
+            showProfiler = !showProfiler;
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.T)) {
+            toggleTelemetry();
+        }
         // handle scanner zoom
         if (Gdx.input.isKeyJustPressed(Input.Keys.A)) {
             scanner.toggleZoom();
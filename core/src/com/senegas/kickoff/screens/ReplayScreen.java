@@ -0,0 +1,255 @@
+package com.senegas.kickoff.screens;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector3;
+import com.senegas.kickoff.Assets;
+import com.senegas.kickoff.KickOff;
+import com.senegas.kickoff.pitches.Pitch;
+import com.senegas.kickoff.pitches.PitchFactory;
+import com.senegas.kickoff.pitches.Scanner;
+import com.senegas.kickoff.renderers.BallRenderer;
+import com.senegas.kickoff.renderers.PitchRenderer;
+import com.senegas.kickoff.renderers.SpriteQueue;
+import com.senegas.kickoff.renderers.TeamRenderer;
+import com.senegas.kickoff.replay.MatchReplay;
+import com.senegas.kickoff.replay.Recording;
+import com.senegas.kickoff.simulation.MatchSimulation;
+import com.senegas.kickoff.states.MatchState;
+import com.senegas.kickoff.utils.CameraHelper;
+
+import java.io.IOException;
+
+/**
+ * Replay screen, plays a recorded match back (see {@link MatchReplay})
+ * <p>
+ * The recorded frames are written into the store of a simulation which is never stepped,
+ * so the match renderers and the scanner draw the replay as they draw a match.
+ * <pre>
+ * SPACE          pause, resume
+ * LEFT, RIGHT    10 seconds backward, forward
+ * DOWN, UP       1 minute backward, forward
+ * ESCAPE         back to the menu
+ * </pre>
+ *
+ * @author Sébastien Sénégas
+ */
+public class ReplayScreen implements Screen {
+    private static final int SHORT_SEEK = 10; // seconds
+    private static final int LONG_SEEK = 60; // seconds
+
+    private final KickOff game;
+    private final Screen menu;
+    private final AssetManager assets;
+    private final MatchReplay replay;
+    private final MatchSimulation simulation;
+
+    private OrthographicCamera camera;
+    private CameraHelper cameraHelper;
+    private BitmapFont font;
+    private SpriteBatch batch;
+    private SpriteBatch worldBatch;
+    private Pitch pitch;
+    private Scanner scanner;
+    private PitchRenderer pitchRenderer;
+    private SpriteQueue spriteQueue = new SpriteQueue();
+    private BallRenderer ballRenderer;
+    private TeamRenderer homeRenderer;
+    private TeamRenderer awayRenderer;
+
+    /** Playback position in ticks, the fraction interpolates between two frames */
+    private double position;
+    /** Tick of the frame in the simulation store */
+    private long shownTick = -1;
+    private MatchState shownState;
+    private boolean paused;
+    private final Vector3 ballPosition = new Vector3();
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * Constructor
+     * @param game the game
+     * @param menu the screen shown when leaving the replay
+     * @param file the recording
+     * @throws IOException if the file is not a recording
+     */
+    public ReplayScreen(KickOff game, Screen menu, FileHandle file) throws IOException {
+        this.game = game;
+        this.menu = menu;
+        this.assets = game.getAssets();
+        this.replay = new MatchReplay(file);
+        this.simulation = new MatchSimulation(replay.getPitchType(), replay.getHomeTactic(), replay.getAwayTactic(),
+                                              replay.getTicksPerSecond(), 0);
+        this.position = replay.getFirstTick();
+
+        Assets.loadMatch(assets, replay.getPitchType());
+        assets.finishLoading(); // immediate when the assets are already resident
+
+        pitch = PitchFactory.getInstance().make(replay.getPitchType());
+        pitchRenderer = new PitchRenderer(assets.get(pitch.getFileName(), TiledMap.class));
+
+        camera = new OrthographicCamera();
+        cameraHelper = new CameraHelper();
+        cameraHelper.setZoom(.45f);
+
+        ballRenderer = new BallRenderer(assets);
+        homeRenderer = new TeamRenderer(simulation.getHomeTeam(), assets);
+        awayRenderer = new TeamRenderer(simulation.getAwayTeam(), assets);
+        scanner = new Scanner(simulation);
+
+        font = new BitmapFont();
+        batch = new SpriteBatch();
+        worldBatch = new SpriteBatch();
+    }
+
+    @Override
+    public void show() {
+    }
+
+    @Override
+    public void render(float deltaTime) {
+        Gdx.gl.glClearColor(0, 0, 0, 1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+
+        if (handleInput()) return;
+
+        if (!paused) {
+            position += deltaTime * replay.getTicksPerSecond();
+        }
+        position = MathUtils.clamp(position, replay.getFirstTick(), replay.getLastTick());
+        showTick((long) position);
+        float alpha = (float) (position - (long) position);
+
+        simulation.getBall().getInterpolatedPosition(alpha, ballPosition);
+        camera.zoom = cameraHelper.getZoom();
+        cameraHelper.setPosition(MathUtils.clamp(ballPosition.x, camera.viewportWidth / 2 * camera.zoom, Pitch.WIDTH - camera.viewportWidth / 2 * camera.zoom),
+                                 MathUtils.clamp(ballPosition.y, camera.viewportHeight / 2 * camera.zoom, Pitch.HEIGHT - camera.viewportHeight / 2 * camera.zoom));
+        cameraHelper.applyTo(camera);
+        camera.update();
+        worldBatch.setProjectionMatrix(camera.combined);
+
+        worldBatch.begin();
+        pitchRenderer.draw(worldBatch);
+        homeRenderer.draw(spriteQueue, alpha);
+        awayRenderer.draw(spriteQueue, alpha);
+        ballRenderer.draw(spriteQueue, simulation.getBall(), alpha);
+        spriteQueue.draw(worldBatch);
+        worldBatch.end();
+
+        scanner.draw(deltaTime);
+
+        batch.begin();
+        text.setLength(0);
+        appendTime(text, (long) position - replay.getFirstTick());
+        text.append(" / ");
+        appendTime(text, replay.getLastTick() - replay.getFirstTick());
+        if (paused) text.append("  PAUSED");
+        font.draw(batch, text, 10, 20);
+        if (shownState != null) {
+            font.draw(batch, shownState.toString(), 10, 40);
+        }
+        batch.end();
+    }
+
+    /**
+     * Put the frame of a tick in the simulation store, decoding the previous one as well
+     * after a jump so the renderers do not interpolate across it
+     * @param tick the tick
+     */
+    private void showTick(long tick) {
+        if (tick == shownTick) return;
+
+        int[] frame;
+        if (tick == shownTick + 1) {
+            frame = replay.seek(tick);
+            Recording.apply(frame, simulation.getStore(), true);
+        } else {
+            Recording.apply(replay.seek(tick - 1), simulation.getStore(), false);
+            frame = replay.seek(tick);
+            Recording.apply(frame, simulation.getStore(), true);
+        }
+        shownState = Recording.getState(frame);
+        shownTick = tick;
+    }
+
+    private void appendTime(StringBuilder out, long ticks) {
+        long seconds = ticks / replay.getTicksPerSecond();
+        out.append(seconds / 60).append(':');
+        if (seconds % 60 < 10) out.append('0');
+        out.append(seconds % 60);
+    }
+
+    /**
+     * Handle the playback keys
+     * @return true if the replay was left
+     */
+    private boolean handleInput() {
+        int ticksPerSecond = replay.getTicksPerSecond();
+        if (Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
+            game.setScreen(menu);
+            return true;
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.SPACE)) {
+            paused = !paused;
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.LEFT)) {
+            position -= SHORT_SEEK * ticksPerSecond;
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.RIGHT)) {
+            position += SHORT_SEEK * ticksPerSecond;
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.DOWN)) {
+            position -= LONG_SEEK * ticksPerSecond;
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.UP)) {
+            position += LONG_SEEK * ticksPerSecond;
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.A)) {
+            scanner.toggleZoom();
+        }
+        return false;
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        camera.viewportHeight = height;
+        camera.viewportWidth = width;
+        batch.getProjectionMatrix().setToOrtho2D(0, 0, width, height);
+    }
+
+    @Override
+    public void hide() {
+        dispose();
+    }
+
+    @Override
+    public void pause() {
+    }
+
+    @Override
+    public void resume() {
+    }
+
+    @Override
+    public void dispose() {
+        if (pitchRenderer == null) return;
+
+        pitchRenderer.dispose();
+        pitchRenderer = null;
+        scanner.dispose();
+        replay.dispose();
+        batch.dispose();
+        worldBatch.dispose();
+        font.dispose();
+        Assets.unloadMatch(assets, replay.getPitchType());
+    }
+}
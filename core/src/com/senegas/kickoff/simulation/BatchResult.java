@@ -0,0 +1,123 @@
+package com.senegas.kickoff.simulation;
+
+/**
+ * Results of a batch of simulated matches, stored as one primitive array per
+ * statistic and indexed by match number
+ */
+public class BatchResult {
+    final int[] homeGoals;
+    final int[] awayGoals;
+    final int[] homeShots;
+    final int[] awayShots;
+    final float[] homePossession;
+
+    BatchResult(int matchCount) {
+        homeGoals = new int[matchCount];
+        awayGoals = new int[matchCount];
+        homeShots = new int[matchCount];
+        awayShots = new int[matchCount];
+        homePossession = new float[matchCount];
+    }
+
+    /**
+     * Store the result of a finished match
+     * @param index the match number
+     * @param simulation the finished match
+     */
+    void set(int index, MatchSimulation simulation) {
+        homeGoals[index] = simulation.getGoals(simulation.getHomeTeam());
+        awayGoals[index] = simulation.getGoals(simulation.getAwayTeam());
+        homeShots[index] = simulation.getShots(simulation.getHomeTeam());
+        awayShots[index] = simulation.getShots(simulation.getAwayTeam());
+        homePossession[index] = simulation.getPossession(simulation.getHomeTeam());
+    }
+
+    public int getMatchCount() {
+        return homeGoals.length;
+    }
+
+    public int getHomeGoals(int index) {
+        return homeGoals[index];
+    }
+
+    public int getAwayGoals(int index) {
+        return awayGoals[index];
+    }
+
+    public int getHomeShots(int index) {
+        return homeShots[index];
+    }
+
+    public int getAwayShots(int index) {
+        return awayShots[index];
+    }
+
+    public float getHomePossession(int index) {
+        return homePossession[index];
+    }
+
+    public int getHomeWins() {
+        int wins = 0;
+        for (int i = 0; i < homeGoals.length; i++) {
+            if (homeGoals[i] > awayGoals[i]) wins++;
+        }
+        return wins;
+    }
+
+    public int getDraws() {
+        int draws = 0;
+        for (int i = 0; i < homeGoals.length; i++) {
+            if (homeGoals[i] == awayGoals[i]) draws++;
+        }
+        return draws;
+    }
+
+    public int getAwayWins() {
+        return getMatchCount() - getHomeWins() - getDraws();
+    }
+
+    public float getAverageHomeGoals() {
+        return average(homeGoals);
+    }
+
+    public float getAverageAwayGoals() {
+        return average(awayGoals);
+    }
+
+    public float getAverageHomeShots() {
+        return average(homeShots);
+    }
+
+    public float getAverageAwayShots() {
+        return average(awayShots);
+    }
+
+    public float getAverageHomePossession() {
+        if (homePossession.length == 0) return 0;
+
+        double sum = 0;
+        for (float possession : homePossession) {
+            sum += possession;
+        }
+        return (float) (sum / homePossession.length);
+    }
+
+    private static float average(int[] values) {
+        if (values.length == 0) return 0;
+
+        long sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        return (float) sum / values.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d matches: home %d / draw %d / away %d, goals %.2f - %.2f, shots %.2f - %.2f, home possession %.1f%%",
+                getMatchCount(), getHomeWins(), getDraws(), getAwayWins(),
+                getAverageHomeGoals(), getAverageAwayGoals(),
+                getAverageHomeShots(), getAverageAwayShots(),
+                getAverageHomePossession() * 100);
+    }
+}
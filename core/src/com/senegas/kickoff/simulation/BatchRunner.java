@@ -0,0 +1,110 @@
+package com.senegas.kickoff.simulation;
+
+import com.senegas.kickoff.pitches.Pitch;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs many independent headless matches in parallel on a fork-join pool
+ * <p>
+ * Tactic files are read through {@code Gdx.files}, so the runner expects a libGDX
+ * application (e.g. a headless one) to be running.
+ */
+public final class BatchRunner {
+    /** Default simulated duration of a match in seconds */
+    public static final float DEFAULT_MATCH_DURATION = 10 * 60;
+
+    /** Matches simulated by a fork-join leaf task */
+    private static final int MATCHES_PER_TASK = 4;
+
+    private BatchRunner() {}
+
+    /**
+     * Simulate matches on the common fork-join pool
+     * @param n the number of matches
+     * @param homeTactic the home team tactic file, e.g. tactics/4-2-4.xml
+     * @param awayTactic the away team tactic file
+     * @param pitchType the pitch type
+     * @param seed the batch seed, match i is seeded with seed + i
+     * @return the batch results
+     */
+    public static BatchResult run(int n, String homeTactic, String awayTactic, Pitch.Type pitchType, long seed) {
+        return run(n, homeTactic, awayTactic, pitchType, seed, DEFAULT_MATCH_DURATION, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Simulate matches
+     * @param n the number of matches
+     * @param homeTactic the home team tactic file, e.g. tactics/4-2-4.xml
+     * @param awayTactic the away team tactic file
+     * @param pitchType the pitch type
+     * @param seed the batch seed, match i is seeded with seed + i
+     * @param matchDuration the simulated duration of each match in seconds
+     * @param pool the pool running the matches
+     * @return the batch results
+     */
+    public static BatchResult run(int n, String homeTactic, String awayTactic, Pitch.Type pitchType, long seed,
+                                  float matchDuration, ForkJoinPool pool) {
+        BatchResult result = new BatchResult(n);
+        pool.invoke(new MatchTask(result, 0, n, homeTactic, awayTactic, pitchType, seed, matchDuration));
+        return result;
+    }
+
+    /**
+     * Simulate a single match to the end
+     * @param simulation the match
+     * @param matchDuration the simulated duration in seconds
+     */
+    public static void play(MatchSimulation simulation, float matchDuration) {
+        long ticks = Math.round(matchDuration * simulation.getTicksPerSecond());
+
+        simulation.start();
+        for (long tick = 0; tick < ticks; tick++) {
+            simulation.step();
+        }
+    }
+
+    /**
+     * Simulates the matches [from, to), splitting the range until it is small enough
+     */
+    private static class MatchTask extends RecursiveAction {
+        private final BatchResult result;
+        private final int from;
+        private final int to;
+        private final String homeTactic;
+        private final String awayTactic;
+        private final Pitch.Type pitchType;
+        private final long seed;
+        private final float matchDuration;
+
+        MatchTask(BatchResult result, int from, int to, String homeTactic, String awayTactic, Pitch.Type pitchType,
+                  long seed, float matchDuration) {
+            this.result = result;
+            this.from = from;
+            this.to = to;
+            this.homeTactic = homeTactic;
+            this.awayTactic = awayTactic;
+            this.pitchType = pitchType;
+            this.seed = seed;
+            this.matchDuration = matchDuration;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= MATCHES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    MatchSimulation simulation = new MatchSimulation(pitchType, homeTactic, awayTactic,
+                            MatchSimulation.DEFAULT_TICKS_PER_SECOND, seed + i);
+                    play(simulation, matchDuration);
+                    result.set(i, simulation);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new MatchTask(result, from, middle, homeTactic, awayTactic, pitchType, seed, matchDuration),
+                      new MatchTask(result, middle, to, homeTactic, awayTactic, pitchType, seed, matchDuration));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.senegas.kickoff.simulation;
+
+/**
+ * Controls of a team for one simulation tick, as a bit set small enough to fit a byte
+ * <p>
+ * The directions steer the team's player first on the ball (see {@link InterceptionSolver}) and
+ * {@link #FIRE} makes that player kick the ball when close enough, see {@link MatchSimulation#step(int, int)}.
+ */
+public final class Controls {
+    public static final int UP = 1;
+    public static final int DOWN = 1 << 1;
+    public static final int LEFT = 1 << 2;
+    public static final int RIGHT = 1 << 3;
+    public static final int FIRE = 1 << 4;
+    /** All the control bits */
+    public static final int MASK = UP | DOWN | LEFT | RIGHT | FIRE;
+
+    /** Sides, indices of the teams */
+    public static final int HOME = 0;
+    public static final int AWAY = 1;
+
+    private Controls() {}
+}
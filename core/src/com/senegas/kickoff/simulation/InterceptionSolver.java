@@ -0,0 +1,188 @@
+package com.senegas.kickoff.simulation;
+
+import com.badlogic.gdx.math.Vector3;
+import com.senegas.kickoff.entities.BallTrajectory;
+import com.senegas.kickoff.entities.EntityStore;
+import com.senegas.kickoff.entities.Player;
+import com.senegas.kickoff.entities.Team;
+import com.senegas.kickoff.pitches.FootballDimensions;
+
+/**
+ * Earliest time and point at which each player of both teams can reach the ball,
+ * from the ball {@link BallTrajectory} and the 8 direction movement of the players
+ * (full speed on an axis, 0.707 of it on both axes along a diagonal).
+ * <p>
+ * Results are kept in primitive arrays indexed by player slot, plus the slots sorted
+ * by arrival time. Solving allocates nothing.
+ */
+public class InterceptionSolver {
+    /** Speed factor on each axis of a diagonal move, see {@link EntityStore} */
+    private static final float DIAGONAL_FACTOR = 0.707f;
+    /** Distance from which a player touches the ball */
+    private static final float REACH = Player.SPRITE_WIDTH / 2;
+    /** Bound of the running time change (times the speed) when the target moves by one pixel */
+    private static final float RUNNING_TIME_SLOPE = 1.5f;
+
+    private final float[] time = new float[EntityStore.PLAYER_COUNT];
+    private final float[] pointX = new float[EntityStore.PLAYER_COUNT];
+    private final float[] pointY = new float[EntityStore.PLAYER_COUNT];
+    /** Player slots sorted by arrival time */
+    private final int[] order = new int[EntityStore.PLAYER_COUNT];
+    /** Highest ball a player can play, indexed by slot */
+    private final float[] reachHeight = new float[EntityStore.PLAYER_COUNT];
+    private final Vector3 ballPosition = new Vector3();
+
+    /**
+     * Solve the interceptions of both teams
+     * @param store the player state
+     * @param trajectory the ball flight
+     * @param home the home team
+     * @param away the away team
+     */
+    public void solve(EntityStore store, BallTrajectory trajectory, Team home, Team away) {
+        updateReachHeights(home);
+        updateReachHeights(away);
+
+        float tickDuration = trajectory.getTickDuration();
+        int ticks = trajectory.getTickCount();
+
+        // the ball only slows down, so its first step is its longest
+        trajectory.getPositionAtTick(0, ballPosition);
+        float startX = ballPosition.x;
+        float startY = ballPosition.y;
+        trajectory.getPositionAtTick(1, ballPosition);
+        float ballStep = (float) Math.sqrt((ballPosition.x - startX) * (ballPosition.x - startX)
+                + (ballPosition.y - startY) * (ballPosition.y - startY));
+
+        for (int i = 0; i < EntityStore.PLAYER_COUNT; i++) {
+            float speed = store.speed[i];
+            time[i] = Float.MAX_VALUE;
+            if (speed <= 0) {
+                trajectory.getRestPosition(ballPosition);
+                pointX[i] = ballPosition.x;
+                pointY[i] = ballPosition.y;
+                continue;
+            }
+
+            // the lateness of the player drops by at most this much per tick, so the ticks
+            // it cannot make up for are skipped
+            float maxCatchUp = tickDuration + ballStep * RUNNING_TIME_SLOPE / speed;
+            int tick = 0;
+            while (tick < ticks) {
+                trajectory.getPositionAtTick(tick, ballPosition);
+                if (ballPosition.z >= reachHeight[i]) {
+                    tick++;
+                    continue;
+                }
+
+                float late = runningTime(store.x[i], store.y[i], ballPosition.x, ballPosition.y, speed) - tick * tickDuration;
+                if (late <= 0) {
+                    time[i] = tick * tickDuration;
+                    break;
+                }
+                tick += Math.max(1, (int) (late / maxCatchUp));
+            }
+            if (tick > ticks) tick = ticks;
+            if (tick == ticks) {
+                // the ball stopped before the player could reach it, go and fetch it
+                trajectory.getRestPosition(ballPosition);
+                time[i] = Math.max((ticks - 1) * tickDuration,
+                        runningTime(store.x[i], store.y[i], ballPosition.x, ballPosition.y, speed));
+            }
+            pointX[i] = ballPosition.x;
+            pointY[i] = ballPosition.y;
+        }
+
+        sort();
+    }
+
+    private void updateReachHeights(Team team) {
+        int first = team.getFirstIndex();
+        for (int i = 0; i < EntityStore.PLAYERS_PER_TEAM; i++) {
+            reachHeight[first + i] = (float) (team.getPlayers().get(i).height() / FootballDimensions.CM_PER_PIXEL);
+        }
+    }
+
+    /**
+     * Time for a player to come within reach of a point, running along a diagonal
+     * then straight on
+     */
+    private static float runningTime(float fromX, float fromY, float toX, float toY, float speed) {
+        float dx = Math.abs(toX - fromX);
+        float dy = Math.abs(toY - fromY);
+        float distance = (float) Math.sqrt(dx * dx + dy * dy);
+        if (distance <= REACH) return 0;
+
+        float scale = (distance - REACH) / distance;
+        dx *= scale;
+        dy *= scale;
+        float diagonal = Math.min(dx, dy);
+        float straight = Math.max(dx, dy) - diagonal;
+        return (diagonal / DIAGONAL_FACTOR + straight) / speed;
+    }
+
+    /**
+     * Insertion sort of the slots by arrival time, ties keep the slot order
+     */
+    private void sort() {
+        for (int i = 0; i < EntityStore.PLAYER_COUNT; i++) {
+            int slot = i;
+            int j = i;
+            while (j > 0 && time[order[j - 1]] > time[slot]) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = slot;
+        }
+    }
+
+    /**
+     * Get the player arriving at a rank
+     * @param rank the rank, 0 being the first player on the ball
+     * @return the player slot
+     */
+    public int getSlot(int rank) {
+        return order[rank];
+    }
+
+    /**
+     * Get the first player of a team on the ball
+     * @param team the team
+     * @return the player slot
+     */
+    public int getFirstSlot(Team team) {
+        int first = team.getFirstIndex();
+        for (int rank = 0; rank < EntityStore.PLAYER_COUNT; rank++) {
+            int slot = order[rank];
+            if (slot >= first && slot < first + EntityStore.PLAYERS_PER_TEAM) return slot;
+        }
+        return first;
+    }
+
+    /**
+     * Get the time a player reaches the ball
+     * @param slot the player slot
+     * @return the time from now in seconds
+     */
+    public float getTime(int slot) {
+        return time[slot];
+    }
+
+    /**
+     * Get the x-axis position where a player reaches the ball
+     * @param slot the player slot
+     * @return the position
+     */
+    public float getX(int slot) {
+        return pointX[slot];
+    }
+
+    /**
+     * Get the y-axis position where a player reaches the ball
+     * @param slot the player slot
+     * @return the position
+     */
+    public float getY(int slot) {
+        return pointY[slot];
+    }
+}
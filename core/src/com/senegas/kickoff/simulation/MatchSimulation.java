@@ -0,0 +1,556 @@
+package com.senegas.kickoff.simulation;
+
+import com.badlogic.gdx.ai.fsm.DefaultStateMachine;
+import com.badlogic.gdx.ai.fsm.StateMachine;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.math.Vector3;
+import com.senegas.kickoff.entities.Ball;
+import com.senegas.kickoff.entities.EntityStore;
+import com.senegas.kickoff.entities.Player;
+import com.senegas.kickoff.entities.Player.Direction;
+import com.senegas.kickoff.entities.SpatialGrid;
+import com.senegas.kickoff.entities.Team;
+import com.senegas.kickoff.pitches.FootballDimensions;
+import com.senegas.kickoff.pitches.Pitch;
+import com.senegas.kickoff.states.MatchState;
+import com.senegas.kickoff.tactics.Tactic424;
+import com.senegas.kickoff.utils.FrameProfiler;
+import com.senegas.kickoff.utils.FrameProfiler.Phase;
+
+/**
+ * Match simulation
+ * <p>
+ * Owns the ball, both teams (with their tactics) and the match state machine, and
+ * advances them by fixed ticks. Nothing in here touches a graphics resource, so a
+ * simulation can run without any GL context, e.g. under a headless application.
+ * The {@link com.senegas.kickoff.screens.Match} screen only renders it.
+ */
+public class MatchSimulation {
+    /** Default number of simulation ticks per second */
+    public static final int DEFAULT_TICKS_PER_SECOND = 50;
+
+    /** Height of the crossbar lower edge in pixels (2.44 m) */
+    private static final float CROSSBAR_HEIGHT = (float) (FootballDimensions.GOAL_HEIGHT_IN_M / FootballDimensions.METER_PER_PIXEL);
+    /** Centre spot, see {@link Pitch#getCenterSpot()} */
+    private static final float CENTER_SPOT_X = (int) (Pitch.PITCH_WIDTH_IN_PX / 2 + Pitch.OUTER_TOP_EDGE_X);
+    private static final float CENTER_SPOT_Y = (int) (Pitch.PITCH_HEIGHT_IN_PX / 2 + Pitch.OUTER_TOP_EDGE_Y + 16);
+    /** Radius of the player bounds touching the ball */
+    private static final float PLAYER_RADIUS = Player.SPRITE_WIDTH / 2;
+    /** Distance under which two players are pushed apart */
+    private static final float PLAYER_SEPARATION = PLAYER_RADIUS;
+    /** Distance ahead of a steered player the destination is set at, so the player keeps running */
+    private static final float CONTROL_LEAD = 32;
+    /** Distance from the ball under which a controlled player can kick it */
+    private static final float KICK_DISTANCE = 2 * PLAYER_RADIUS;
+    private static final float KICK_SPEED = 400;
+
+    private final int ticksPerSecond;
+    private final float tickDuration;
+    private final Pitch.Type pitchType;
+    private final EntityStore store;
+    private final SpatialGrid grid;
+    /** Slots found by the grid queries */
+    private final int[] nearby = new int[EntityStore.PLAYER_COUNT];
+    private final InterceptionSolver interceptions = new InterceptionSolver();
+    /** Tick the interceptions were solved at, -1 if never */
+    private long interceptionTick = -1;
+    private final Ball ball;
+    private final Team home;
+    private final Team away;
+    private final StateMachine<MatchSimulation, MatchState> matchFsm;
+    private final RandomXS128 random;
+
+    private long tick;
+    /** Times the tick phases when set, see {@link #setProfiler(FrameProfiler)} */
+    private FrameProfiler profiler;
+    private MatchState pendingState;
+    private int pendingTicks;
+
+    private Team kickoffTeam;
+    private Team lastTouchTeam;
+    private boolean ballInContact;
+    /** Goals, shots and ticks of possession indexed by team, home first */
+    private final int[] goals = new int[2];
+    private final int[] shots = new int[2];
+    private final int[] possessionTicks = new int[2];
+    /** Controls of the previous tick indexed by team, to kick once per press */
+    private final int[] previousControls = new int[2];
+
+    /**
+     * Constructor
+     * @param pitchType the pitch type the match is played on
+     */
+    public MatchSimulation(Pitch.Type pitchType) {
+        this(pitchType, DEFAULT_TICKS_PER_SECOND);
+    }
+
+    /**
+     * Constructor
+     * @param pitchType the pitch type the match is played on
+     * @param ticksPerSecond the fixed simulation rate, e.g. 50 or 100
+     */
+    public MatchSimulation(Pitch.Type pitchType, int ticksPerSecond) {
+        this(pitchType, Tactic424.FILE_NAME, Tactic424.FILE_NAME, ticksPerSecond, MathUtils.random.nextLong());
+    }
+
+    /**
+     * Constructor
+     * @param pitchType the pitch type the match is played on
+     * @param homeTactic the home team tactic file, e.g. tactics/4-2-4.xml
+     * @param awayTactic the away team tactic file
+     * @param ticksPerSecond the fixed simulation rate, e.g. 50 or 100
+     * @param seed the seed of the match random events (the kick off coin toss)
+     */
+    public MatchSimulation(Pitch.Type pitchType, String homeTactic, String awayTactic, int ticksPerSecond, long seed) {
+        if (ticksPerSecond <= 0) {
+            throw new IllegalArgumentException("ticksPerSecond must be positive: " + ticksPerSecond);
+        }
+        this.ticksPerSecond = ticksPerSecond;
+        this.tickDuration = 1.0f / ticksPerSecond;
+        this.pitchType = pitchType;
+
+        Vector2 centerSpot = Pitch.getCenterSpot();
+        store = new EntityStore();
+        ball = new Ball(store, centerSpot.x, centerSpot.y, 160, tickDuration);
+        ball.setFriction(pitchType.getFriction());
+        home = new Team(store, 0, "TeamA", Direction.NORTH, homeTactic);
+        away = new Team(store, EntityStore.PLAYERS_PER_TEAM, "TeamB", Direction.SOUTH, awayTactic);
+        grid = new SpatialGrid(store);
+
+        random = new RandomXS128(seed);
+        kickoffTeam = random.nextBoolean() ? home : away;
+
+        matchFsm = new DefaultStateMachine<MatchSimulation, MatchState>(this);
+    }
+
+    /**
+     * Start the match with its introduction
+     */
+    public void start() {
+        matchFsm.changeState(MatchState.INTRODUCTION);
+    }
+
+    /**
+     * Advance the simulation by one tick of {@link #getTickDuration()} seconds, without controls
+     */
+    public void step() {
+        step(0, 0);
+    }
+
+    /**
+     * Advance the simulation by one tick of {@link #getTickDuration()} seconds. The outcome only
+     * depends on the match seed and on the controls of each tick, so peers stepping with the
+     * same controls play the same match.
+     * @param homeControls the home team controls for this tick, see {@link Controls}
+     * @param awayControls the away team controls for this tick
+     */
+    public void step(int homeControls, int awayControls) {
+        if (profiler != null) profiler.begin(Phase.FSM);
+        updatePendingStateChange();
+
+        matchFsm.update();
+        applyControls(home, homeControls);
+        applyControls(away, awayControls);
+
+        if (profiler != null) {
+            profiler.end(Phase.FSM);
+            profiler.begin(Phase.ENTITIES);
+        }
+        home.update(tickDuration);
+        away.update(tickDuration);
+        ball.update(tickDuration);
+
+        if (profiler != null) {
+            profiler.end(Phase.ENTITIES);
+            profiler.begin(Phase.COLLISIONS);
+        }
+        grid.update();
+        separatePlayers();
+        grid.update();
+        checkCollisions();
+        checkGoal();
+        if (profiler != null) profiler.end(Phase.COLLISIONS);
+
+        if (getState() == MatchState.INPLAY && lastTouchTeam != null) {
+            possessionTicks[indexOf(lastTouchTeam)]++;
+        }
+
+        tick++;
+    }
+
+    /**
+     * Steer the team's player first on the ball and kick when asked, while the ball is in play
+     * @param team the team
+     * @param controls the team controls, see {@link Controls}
+     */
+    private void applyControls(Team team, int controls) {
+        int side = indexOf(team);
+        int pressed = controls & ~previousControls[side];
+        previousControls[side] = controls;
+        if (controls == 0 || getState() != MatchState.INPLAY) return;
+
+        // the first player on the ball along its flight, not the closest one to where it is now
+        int slot = getInterceptions().getFirstSlot(team);
+        int dx = ((controls & Controls.RIGHT) != 0 ? 1 : 0) - ((controls & Controls.LEFT) != 0 ? 1 : 0);
+        int dy = ((controls & Controls.UP) != 0 ? 1 : 0) - ((controls & Controls.DOWN) != 0 ? 1 : 0);
+        if (dx != 0 || dy != 0) {
+            store.destX[slot] = store.x[slot] + dx * CONTROL_LEAD;
+            store.destY[slot] = store.y[slot] + dy * CONTROL_LEAD;
+            // the tactic sends the player back to the formation once released
+            team.getTactic().reset();
+        }
+
+        if ((pressed & Controls.FIRE) != 0
+                && store.distanceSquared(slot, store.x[EntityStore.BALL], store.y[EntityStore.BALL]) < KICK_DISTANCE * KICK_DISTANCE
+                && store.z[EntityStore.BALL] < playerAt(slot).height() / FootballDimensions.CM_PER_PIXEL) {
+            ball.applyForce(KICK_SPEED, store.direction[slot]);
+        }
+    }
+
+    /**
+     * Push apart the players standing closer than {@link #PLAYER_SEPARATION}
+     */
+    private void separatePlayers() {
+        for (int i = 0; i < EntityStore.PLAYER_COUNT; i++) {
+            int count = grid.query(store.x[i], store.y[i], PLAYER_SEPARATION, nearby);
+            for (int n = 0; n < count; n++) {
+                int j = nearby[n];
+                if (j <= i) continue; // each pair once
+
+                float dx = store.x[j] - store.x[i];
+                float dy = store.y[j] - store.y[i];
+                float distance = (float) Math.sqrt(dx * dx + dy * dy);
+                if (distance == 0) {
+                    // same spot, split them along the x-axis
+                    dx = 1;
+                    dy = 0;
+                    distance = 1;
+                }
+                float push = (PLAYER_SEPARATION - distance) / 2 / distance;
+                store.x[i] -= dx * push;
+                store.y[i] -= dy * push;
+                store.x[j] += dx * push;
+                store.y[j] += dy * push;
+            }
+        }
+    }
+
+    /**
+     * Check collisions between the players of both teams and the ball, along the
+     * ball path during the tick. The closest player on the ground under the ball kicks it
+     * when the contact starts.
+     * (package-private for the benchmarks)
+     */
+    void checkCollisions() {
+        float ballX = store.x[EntityStore.BALL];
+        float ballY = store.y[EntityStore.BALL];
+        float ballZ = store.z[EntityStore.BALL];
+
+        int count = grid.querySegment(store.previousX[EntityStore.BALL], store.previousY[EntityStore.BALL],
+                                      ballX, ballY, PLAYER_RADIUS, nearby);
+        int closest = -1;
+        float closestDistance = Float.MAX_VALUE;
+        for (int n = 0; n < count; n++) {
+            int i = nearby[n];
+            Player player = playerAt(i);
+            if (ballZ < player.height() / FootballDimensions.CM_PER_PIXEL) { //!Reimp move constant elsewhere
+                float distance = store.distanceSquared(i, ballX, ballY);
+                if (distance < closestDistance || (distance == closestDistance && i < closest)) {
+                    closest = i;
+                    closestDistance = distance;
+                }
+            }
+        }
+
+        if (closest >= 0 && !ballInContact) {
+            touch(teamAt(closest), playerAt(closest));
+            // kicked once per touch, faster than the player so the ball leaves the contact,
+            // and its flight is predicted once per kick instead of every tick of the contact
+            ball.applyForce(store.speed[closest] * 1.125f + 30.0f, store.direction[closest]);
+        }
+        ballInContact = closest >= 0;
+    }
+
+    private Team teamAt(int slot) {
+        return slot < away.getFirstIndex() ? home : away;
+    }
+
+    private Player playerAt(int slot) {
+        Team team = teamAt(slot);
+        return team.getPlayers().get(slot - team.getFirstIndex());
+    }
+
+    /**
+     * A player starts touching the ball
+     * @param team the player's team
+     * @param player the player
+     */
+    private void touch(Team team, Player player) {
+        lastTouchTeam = team;
+        if (getState() == MatchState.INPLAY && isShot(team, player)) {
+            shots[indexOf(team)]++;
+        }
+    }
+
+    /**
+     * A shot is a kick towards the opponent goal from inside the opponent penalty area
+     * @param team the kicker's team
+     * @param player the kicker
+     * @return true if the kick is a shot
+     */
+    private boolean isShot(Team team, Player player) {
+        Vector3 position = ball.getPosition();
+        float x = position.x - Pitch.OUTER_BOTTOM_EDGE_X;
+        float y = position.y - Pitch.OUTER_BOTTOM_EDGE_Y;
+        if (Math.abs(x - Pitch.HALF_PITCH_WIDTH_IN_PX) > Pitch.HALF_PENALTY_AREA_WIDTH_IN_PX) return false;
+
+        int direction = player.getDirection();
+        if (team.getDirection() == Direction.NORTH) {
+            return y > Pitch.PITCH_HEIGHT_IN_PX - Pitch.PENALTY_AREA_HEIGHT_IN_PX
+                    && (direction == Direction.NORTH_WEST.ordinal() || direction == Direction.NORTH.ordinal() || direction == Direction.NORTH_EAST.ordinal());
+        }
+        return y < Pitch.PENALTY_AREA_HEIGHT_IN_PX
+                && (direction == Direction.SOUTH_WEST.ordinal() || direction == Direction.SOUTH.ordinal() || direction == Direction.SOUTH_EAST.ordinal());
+    }
+
+    /**
+     * Check whether the ball crossed a goal line between the posts and under the crossbar
+     */
+    private void checkGoal() {
+        if (getState() != MatchState.INPLAY) return;
+
+        Vector3 position = ball.getPosition();
+        float x = position.x - Pitch.OUTER_BOTTOM_EDGE_X;
+        float y = position.y - Pitch.OUTER_BOTTOM_EDGE_Y;
+        if (x <= Pitch.LEFT_POST_INNEREDGE_X || x >= Pitch.RIGHT_POST_INNEREDGE_X || position.z >= CROSSBAR_HEIGHT) return;
+
+        if (y > Pitch.PITCH_HEIGHT_IN_PX) {
+            goal(home.getDirection() == Direction.NORTH ? home : away);
+        } else if (y < 0) {
+            goal(home.getDirection() == Direction.NORTH ? away : home);
+        }
+    }
+
+    /**
+     * Score a goal, the other team kicks off
+     * @param scorer the scoring team
+     */
+    private void goal(Team scorer) {
+        goals[indexOf(scorer)]++;
+        kickoffTeam = scorer == home ? away : home;
+
+        // moved, not flown, so the interpolation does not draw it across the pitch
+        ball.teleport(CENTER_SPOT_X, CENTER_SPOT_Y, 0);
+        ball.setVelocity(0, 0, 0);
+        lastTouchTeam = null;
+
+        pendingState = null;
+        matchFsm.changeState(MatchState.PREPAREFORKICKOFF);
+    }
+
+    private int indexOf(Team team) {
+        return team == home ? 0 : 1;
+    }
+
+    /**
+     * Change the match state after a delay, counted in simulation ticks
+     * @param state the next state
+     * @param delay the delay in seconds
+     */
+    public void scheduleStateChange(MatchState state, float delay) {
+        this.pendingState = state;
+        this.pendingTicks = Math.round(delay * ticksPerSecond);
+    }
+
+    public boolean hasPendingStateChange() {
+        return pendingState != null;
+    }
+
+    private void updatePendingStateChange() {
+        if (pendingState == null) return;
+
+        if (pendingTicks-- <= 0) {
+            MatchState state = pendingState;
+            pendingState = null;
+            matchFsm.changeState(state);
+        }
+    }
+
+    /**
+     * Copy the complete match state into a snapshot: the entities, the tactics, the match state
+     * with its pending change, the score and the random generator. Stepping after restoring the
+     * snapshot with the same controls plays the same ticks again.
+     * @param snapshot the snapshot receiving the state, reused
+     */
+    public void save(MatchSnapshot snapshot) {
+        store.save(snapshot.floats, snapshot.ints);
+        snapshot.tick = tick;
+        snapshot.randomSeed0 = random.getState(0);
+        snapshot.randomSeed1 = random.getState(1);
+        snapshot.state = matchFsm.getCurrentState();
+        snapshot.pendingState = pendingState;
+        snapshot.pendingTicks = pendingTicks;
+        snapshot.kickoffTeam = kickoffTeam == null ? -1 : indexOf(kickoffTeam);
+        snapshot.lastTouchTeam = lastTouchTeam == null ? -1 : indexOf(lastTouchTeam);
+        snapshot.ballInContact = ballInContact;
+        snapshot.homeTacticKey = home.getTactic().getAppliedKey();
+        snapshot.awayTacticKey = away.getTactic().getAppliedKey();
+        System.arraycopy(goals, 0, snapshot.goals, 0, 2);
+        System.arraycopy(shots, 0, snapshot.shots, 0, 2);
+        System.arraycopy(possessionTicks, 0, snapshot.possessionTicks, 0, 2);
+        System.arraycopy(previousControls, 0, snapshot.previousControls, 0, 2);
+    }
+
+    /**
+     * Bring the match back to the state of a snapshot saved from it, the current state is lost.
+     * The match state is set back without calling its enter or exit.
+     * @param snapshot the snapshot, see {@link #save(MatchSnapshot)}
+     */
+    public void restore(MatchSnapshot snapshot) {
+        store.restore(snapshot.floats, snapshot.ints);
+        ball.resetTrajectory();
+        tick = snapshot.tick;
+        random.setState(snapshot.randomSeed0, snapshot.randomSeed1);
+        matchFsm.setInitialState(snapshot.state);
+        pendingState = snapshot.pendingState;
+        pendingTicks = snapshot.pendingTicks;
+        kickoffTeam = teamOf(snapshot.kickoffTeam);
+        lastTouchTeam = teamOf(snapshot.lastTouchTeam);
+        ballInContact = snapshot.ballInContact;
+        home.getTactic().setAppliedKey(snapshot.homeTacticKey);
+        away.getTactic().setAppliedKey(snapshot.awayTacticKey);
+        System.arraycopy(snapshot.goals, 0, goals, 0, 2);
+        System.arraycopy(snapshot.shots, 0, shots, 0, 2);
+        System.arraycopy(snapshot.possessionTicks, 0, possessionTicks, 0, 2);
+        System.arraycopy(snapshot.previousControls, 0, previousControls, 0, 2);
+
+        // caches derived from the entities
+        interceptionTick = -1;
+        grid.update();
+    }
+
+    private Team teamOf(int index) {
+        return index < 0 ? null : (index == 0 ? home : away);
+    }
+
+    public StateMachine<MatchSimulation, MatchState> getFSM() {
+        return matchFsm;
+    }
+
+    public MatchState getState() {
+        return matchFsm.getCurrentState();
+    }
+
+    /**
+     * Get the number of ticks simulated so far
+     * @return the tick count
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Get the simulated time
+     * @return the time in seconds
+     */
+    public float getTime() {
+        return tick * tickDuration;
+    }
+
+    /**
+     * Get the fixed simulation rate
+     * @return the number of ticks per second
+     */
+    public int getTicksPerSecond() {
+        return ticksPerSecond;
+    }
+
+    /**
+     * Get the duration of a tick
+     * @return the tick duration in seconds
+     */
+    public float getTickDuration() {
+        return tickDuration;
+    }
+
+    /**
+     * Get the team kicking off at the next kick off
+     * @return the team
+     */
+    public Team getKickoffTeam() {
+        return kickoffTeam;
+    }
+
+    public int getGoals(Team team) {
+        return goals[indexOf(team)];
+    }
+
+    public int getShots(Team team) {
+        return shots[indexOf(team)];
+    }
+
+    /**
+     * Get the share of the time in play the team had the ball, from its last touch
+     * @param team the team
+     * @return the possession between 0 and 1
+     */
+    public float getPossession(Team team) {
+        int total = possessionTicks[0] + possessionTicks[1];
+        return total == 0 ? 0.5f : (float) possessionTicks[indexOf(team)] / total;
+    }
+
+    public Pitch.Type getPitchType() {
+        return pitchType;
+    }
+
+    public Team getHomeTeam() {
+        return home;
+    }
+
+    public Team getAwayTeam() {
+        return away;
+    }
+
+    public Ball getBall() {
+        return ball;
+    }
+
+    /**
+     * Get the per tick state of the players and the ball
+     * @return the entity store
+     */
+    public EntityStore getStore() {
+        return store;
+    }
+
+    /**
+     * Get the earliest time and point each player can reach the ball, solved at most
+     * once per tick
+     * @return the solved interceptions, reused by each call
+     */
+    public InterceptionSolver getInterceptions() {
+        if (interceptionTick != tick) {
+            interceptions.solve(store, ball.getTrajectory(), home, away);
+            interceptionTick = tick;
+        }
+        return interceptions;
+    }
+
+    /**
+     * Get the spatial index of the players, up to date after each tick
+     * @return the grid
+     */
+    public SpatialGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Time the phases of the following ticks, e.g. for the match profiler
+     * @param profiler the profiler, null to stop timing
+     */
+    public void setProfiler(FrameProfiler profiler) {
+        this.profiler = profiler;
+    }
+}
@@ -0,0 +1,41 @@
+package com.senegas.kickoff.simulation;
+
+import com.senegas.kickoff.entities.EntityStore;
+import com.senegas.kickoff.states.MatchState;
+
+/**
+ * Complete state of a {@link MatchSimulation} at a tick, see {@link MatchSimulation#save(MatchSnapshot)}
+ * <p>
+ * The entities are copied into flat preallocated buffers and the rest is a handful of scalars,
+ * so saving or restoring a snapshot allocates nothing and takes a few array copies. A snapshot
+ * is meant to be reused, e.g. from a ring of them kept by a rollback session.
+ */
+public final class MatchSnapshot {
+    final float[] floats = new float[EntityStore.FLOAT_VALUES];
+    final int[] ints = new int[EntityStore.INT_VALUES];
+
+    long tick;
+    long randomSeed0;
+    long randomSeed1;
+    MatchState state;
+    MatchState pendingState;
+    int pendingTicks;
+    /** Team indices, home first, -1 for none */
+    int kickoffTeam;
+    int lastTouchTeam;
+    boolean ballInContact;
+    int homeTacticKey;
+    int awayTacticKey;
+    final int[] goals = new int[2];
+    final int[] shots = new int[2];
+    final int[] possessionTicks = new int[2];
+    final int[] previousControls = new int[2];
+
+    /**
+     * Get the tick the snapshot was saved at
+     * @return the number of ticks simulated before the snapshot
+     */
+    public long getTick() {
+        return tick;
+    }
+}
@@ -2,111 +2,80 @@ package com.senegas.kickoff.states;
 
 import com.badlogic.gdx.ai.fsm.State;
 import com.badlogic.gdx.ai.msg.Telegram;
-import com.badlogic.gdx.math.MathUtils;
-import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.Timer;
-import com.senegas.kickoff.pitches.Pitch;
-import com.senegas.kickoff.screens.Match;
+import com.senegas.kickoff.simulation.MatchSimulation;
 
-public enum MatchState implements State<Match> {
+public enum MatchState implements State<MatchSimulation> {
 
     INTRODUCTION() {
         @Override
-        public void enter (Match match){
-
-            long id = match.crowd.play(0.2f);
-
+        public void enter (MatchSimulation match){
             match.getHomeTeam().setupIntroduction();
             match.getAwayTeam().setupIntroduction();
-
-            match.cameraHelper.setPosition(MathUtils.clamp(match.getBall().getPosition().x, match.getCamera().viewportWidth / 2 * match.getCamera().zoom, Pitch.WIDTH - match.getCamera().viewportWidth / 2 * match.getCamera().zoom),
-                    MathUtils.clamp(match.getBall().getPosition().y, match.getCamera().viewportHeight / 2 * match.getCamera().zoom, Pitch.HEIGHT - match.getCamera().viewportHeight / 2 * match.getCamera().zoom));
-
-            match.cameraHelper.setTarget(new Vector2(352, (int)(Pitch.PITCH_HEIGHT_IN_PX / 2 + Pitch.OUTER_TOP_EDGE_Y + 16)));
         }
 
         @Override
-        public void update (final Match match){
-            if (match.getHomeTeam().isReady() && match.getAwayTeam().isReady()) {
+        public void update (MatchSimulation match){
+            if (match.getHomeTeam().isReady() && match.getAwayTeam().isReady() && !match.hasPendingStateChange()) {
                 float delay = 7; // seconds
-                Timer.schedule(new Timer.Task(){
-                    @Override
-                    public void run() {
-                        match.getFSM().changeState(PREPAREFORKICKOFF);
-                    }
-                }, delay);
+                match.scheduleStateChange(PREPAREFORKICKOFF, delay);
             }
         }
 
         @Override
-        public void exit (Match match){
+        public void exit (MatchSimulation match){
 
         }
 
         @Override
-        public boolean onMessage (Match match, Telegram telegram){
+        public boolean onMessage (MatchSimulation match, Telegram telegram){
             return false;
         }
     },
 
     PREPAREFORKICKOFF() {
         @Override
-        public void enter (final Match match){
-            match.cameraHelper.setTarget(Pitch.getCenterSpot());
-
-            match.getHomeTeam().getTactic().setupKickoff(true);
-            match.getAwayTeam().getTactic().setupKickoff(false);
+        public void enter (MatchSimulation match){
+            match.getHomeTeam().getTactic().setupKickoff(match.getKickoffTeam() == match.getHomeTeam());
+            match.getAwayTeam().getTactic().setupKickoff(match.getKickoffTeam() == match.getAwayTeam());
 
             float delay = 5; // seconds
-            Timer.schedule(new Timer.Task(){
-                @Override
-                public void run() {
-                    //long id = match.whistle.play(0.2f);
-                    match.cameraHelper.setTarget(null);
-                    match.getFSM().changeState(INPLAY);
-                }
-            }, delay);
+            match.scheduleStateChange(INPLAY, delay);
         }
 
         @Override
-        public void update (Match match){
-            if (!match.cameraHelper.hasTarget()) {
-                match.cameraHelper.setPosition(MathUtils.clamp(match.getBall().getPosition().x, match.getCamera().viewportWidth / 2 * match.getCamera().zoom, Pitch.WIDTH - match.getCamera().viewportWidth / 2 * match.getCamera().zoom),
-                        MathUtils.clamp(match.getBall().getPosition().y, match.getCamera().viewportHeight / 2 * match.getCamera().zoom, Pitch.HEIGHT - match.getCamera().viewportHeight / 2 * match.getCamera().zoom));
-            }
+        public void update (MatchSimulation match){
+
         }
 
         @Override
-        public void exit (Match match){
+        public void exit (MatchSimulation match){
 
         }
 
         @Override
-        public boolean onMessage (Match match, Telegram telegram){
+        public boolean onMessage (MatchSimulation match, Telegram telegram){
             return false;
         }
     },
 
     INPLAY() {
         @Override
-        public void enter (Match match){
+        public void enter (MatchSimulation match){
         }
 
         @Override
-        public void update (Match match){
-            match.cameraHelper.setPosition(MathUtils.clamp(match.getBall().getPosition().x, match.getCamera().viewportWidth / 2 * match.getCamera().zoom, Pitch.WIDTH - match.getCamera().viewportWidth / 2 * match.getCamera().zoom),
-                                           MathUtils.clamp(match.getBall().getPosition().y, match.getCamera().viewportHeight / 2 * match.getCamera().zoom, Pitch.HEIGHT - match.getCamera().viewportHeight / 2 * match.getCamera().zoom));
+        public void update (MatchSimulation match){
             match.getHomeTeam().getTactic().update(match.getBall());
             match.getAwayTeam().getTactic().update(match.getBall());
         }
 
         @Override
-        public void exit (Match match){
+        public void exit (MatchSimulation match){
 
         }
 
         @Override
-        public boolean onMessage (Match match, Telegram telegram){
+        public boolean onMessage (MatchSimulation match, Telegram telegram){
             return false;
         }
     }
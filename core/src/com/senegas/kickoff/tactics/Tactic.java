@@ -1,25 +1,14 @@
 package com.senegas.kickoff.tactics;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.GL20;
-import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
-import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.ObjectMap;
-import com.badlogic.gdx.utils.XmlReader;
-import com.badlogic.gdx.utils.XmlReader.Element;
 import com.senegas.kickoff.entities.Ball;
+import com.senegas.kickoff.entities.EntityStore;
 import com.senegas.kickoff.entities.Player.Direction;
 import com.senegas.kickoff.entities.Team;
 import com.senegas.kickoff.pitches.Pitch;
-import com.senegas.kickoff.utils.PitchUtils;
-
-import java.io.IOException;
 
  /**
  * Any tactic must be a subclass of Tactic
@@ -72,18 +61,27 @@ public class Tactic {
 		}
 	}
 	
-	private final static int REGION_ROWS = 4;
-	private final static int REGION_COLUMNS = 3;
+	/** Indices of the compiled destination tables */
+	final static int NORTH = 0;
+	final static int SOUTH = 1;
+	final static int REGION_ROWS = 4;
+	final static int REGION_COLUMNS = 3;
 	public final static int REGIONS_COUNT = REGION_ROWS * REGION_COLUMNS;
-	private final static float REGION_WIDTH_IN_PX = (float) (Pitch.PITCH_WIDTH_IN_PX / REGION_COLUMNS);
-	private final static float REGION_HEIGHT_IN_PX = (float) (Pitch.PITCH_HEIGHT_IN_PX / REGION_ROWS);
+	final static float REGION_WIDTH_IN_PX = (float) (Pitch.PITCH_WIDTH_IN_PX / REGION_COLUMNS);
+	final static float REGION_HEIGHT_IN_PX = (float) (Pitch.PITCH_HEIGHT_IN_PX / REGION_ROWS);
 	
-	private ShapeRenderer shapeRenderer = new ShapeRenderer(); // mainly used for debug purpose
+	final static int LOCATIONS_COUNT = Location.values().length;
+	/** Resolution of the position field derived from the regions */
+	public final static int FIELD_COLUMNS = 16;
+	public final static int FIELD_ROWS = 24;
+	public final static int FIELD_CELLS = FIELD_COLUMNS * FIELD_ROWS;
+	final static float FIELD_CELL_WIDTH_IN_PX = (float) (Pitch.PITCH_WIDTH_IN_PX / FIELD_COLUMNS);
+	final static float FIELD_CELL_HEIGHT_IN_PX = (float) (Pitch.PITCH_HEIGHT_IN_PX / FIELD_ROWS);
 	
-	private String name;
-	private Team team;
-	private Vector2[][] locations;
-	private Array<Rectangle> regions;
+	private final Team team;
+	private final TacticDefinition definition;
+	/** Key of the destinations last pushed to the players, -1 if none */
+	private int appliedKey = -1;
 	
 	/**
 	 * Constructor
@@ -91,60 +89,17 @@ public class Tactic {
 	 * @param fileName
 	 */
 	public Tactic(Team team, String fileName) {
-		this.team = team;
-		new Array<ObjectMap<Location, Vector2>>();
-		this.locations = new Vector2[10][Location.values().length];
-		this.regions = new Array<Rectangle>();
-		
-		createRegions();
-		try {
-			loadFromXml(fileName);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-	}
-
-	/**
-	 * Create the pitch regions
-	 */
-	private void createRegions() {
-		// create pitch regions
-		for (int column = 0; column < REGION_COLUMNS; column++) {
-			for (int row = 0; row < REGION_ROWS; row++) {
-				this.regions.add(new Rectangle(column * REGION_WIDTH_IN_PX, row * REGION_HEIGHT_IN_PX,
-						                       REGION_WIDTH_IN_PX, REGION_HEIGHT_IN_PX));
-			}
-		}
+		this(team, TacticRegistry.get(fileName));
 	}
 	
 	/**
-	 * Load player locations from tactic xml file
-	 * @param fileName
-	 * @throws IOException 
+	 * Constructor
+	 * @param team the team using the tactic
+	 * @param definition the shared tactic definition
 	 */
-	private void loadFromXml(String fileName) throws IOException {
-		Element root = new XmlReader().parse(Gdx.files.internal(fileName));
-
-		this.name = root.get("name");
-		Gdx.app.log("Tactic", "Loading " + name + "...");
-
-		Array<Element> players = root.getChildrenByName("player");
-		int playerIndex = 0;
-		for (Element player : players) {
-			//int shirt = player.getInt("shirt"); // shirt number
-			//Gdx.app.log("Tactic", "Location for player number " + shirt);
-
-			// regions
-			Array<Element> regions = player.getChildrenByName("region");
-			for (Element region : regions) {
-				String regionName = region.get("name"); // region name
-
-				this.locations[playerIndex][Location.valueOf(regionName).ordinal()] = new Vector2(region.getFloat("x"), region.getFloat("y"));
-
-				//Gdx.app.log("Tactic", locationId + " read");
-			}
-			playerIndex++;
-		}	
+	public Tactic(Team team, TacticDefinition definition) {
+		this.team = team;
+		this.definition = definition;
 	}
 	
 	/**
@@ -152,27 +107,96 @@ public class Tactic {
 	 * @return the tactic name
 	 */
 	public String getName() {
-		return this.name;
+		return this.definition.getName();
 	}
 	
+	/**
+	 * Get the shared tactic definition
+	 * @return the definition
+	 */
+	public TacticDefinition getDefinition() {
+		return this.definition;
+	}
+	
+	/**
+	 * Send the players to their location for the ball position, only when the ball changed of field cell
+	 * @param ball the ball
+	 */
 	public void update(Ball ball) {
-		int regionIndex = getRegionIndex(ball, this.team);
-		//Gdx.app.log("Tactic", "region index: " + regionIndex);
-		for (int playerIndex = 0; playerIndex < 10; playerIndex++) {
-			Vector3 playerLocation = PitchUtils.pitchToGlobal(team.getDirection() == Direction.NORTH ? locations[playerIndex][regionIndex].x : (float)Pitch.PITCH_WIDTH_IN_PX - locations[playerIndex][regionIndex].x,
-                                                              team.getDirection() == Direction.NORTH ? locations[playerIndex][regionIndex].y : (float)Pitch.PITCH_HEIGHT_IN_PX - locations[playerIndex][regionIndex].y);
-			this.team.getPlayers().get(playerIndex).setDestination(playerLocation);
-		}
+		int cell = getFieldCell(ball, this.team);
+		int direction = team.getDirection() == Direction.NORTH ? NORTH : SOUTH;
+		push(definition.fieldX[direction], definition.fieldY[direction], cell * EntityStore.PLAYERS_PER_TEAM,
+		     2 * LOCATIONS_COUNT + direction * FIELD_CELLS + cell);
 	}
 
 	public void setupKickoff(boolean attack) {
-	    int regionIndex = attack ? Location.kickoff_own.ordinal() : Location.kickoff_def.ordinal();
-        for (int playerIndex = 0; playerIndex < 10; playerIndex++) {
-            Vector3 playerLocation = PitchUtils.pitchToGlobal(team.getDirection() == Direction.NORTH ? locations[playerIndex][regionIndex].x : (float)Pitch.PITCH_WIDTH_IN_PX - locations[playerIndex][regionIndex].x,
-                    team.getDirection() == Direction.NORTH ? locations[playerIndex][regionIndex].y : (float)Pitch.PITCH_HEIGHT_IN_PX - locations[playerIndex][regionIndex].y);
-            this.team.getPlayers().get(playerIndex).setDestination(playerLocation);
-        }
-    }
+		int location = attack ? Location.kickoff_own.ordinal() : Location.kickoff_def.ordinal();
+		int direction = team.getDirection() == Direction.NORTH ? NORTH : SOUTH;
+		// the destinations may have been set elsewhere since (e.g. by the introduction)
+		reset();
+		push(definition.destinationX[direction], definition.destinationY[direction], location * EntityStore.PLAYERS_PER_TEAM,
+		     direction * LOCATIONS_COUNT + location);
+	}
+	
+	/**
+	 * Forget the destinations last pushed, so the next update pushes them again
+	 * (e.g. after a player was steered away from the formation)
+	 */
+	public void reset() {
+		appliedKey = -1;
+	}
+	
+	/**
+	 * Get the key of the destinations last pushed, the only state of a tactic
+	 * (e.g. for the match snapshots)
+	 * @return the key, -1 if none
+	 */
+	public int getAppliedKey() {
+		return appliedKey;
+	}
+	
+	/**
+	 * Restore the key of the destinations last pushed
+	 * @param appliedKey the key returned by {@link #getAppliedKey()}
+	 */
+	public void setAppliedKey(int appliedKey) {
+		this.appliedKey = appliedKey;
+	}
+	
+	/**
+	 * Copy destinations to the players if they are not the last ones pushed
+	 * @param x the destinations table
+	 * @param y the destinations table
+	 * @param from the offset of the first player in the tables
+	 * @param key the key of these destinations
+	 */
+	private void push(float[] x, float[] y, int from, int key) {
+		if (key == appliedKey) return;
+		
+		appliedKey = key;
+		EntityStore store = team.getStore();
+		System.arraycopy(x, from, store.destX, team.getFirstIndex(), EntityStore.PLAYERS_PER_TEAM);
+		System.arraycopy(y, from, store.destY, team.getFirstIndex(), EntityStore.PLAYERS_PER_TEAM);
+	}
+	
+	/**
+	 * Get the position field cell of the ball, from the team's side
+	 * (cells are numbered like the regions, see {@link #getRegionIndex(Ball, Team)})
+	 * @param ball
+	 * @param team
+	 * @return the cell index
+	 */
+	public static int getFieldCell(Ball ball, Team team) {
+		Vector3 ballPosition = ball.getPosition();
+		float ballX = ballPosition.x - Pitch.OUTER_BOTTOM_EDGE_X;
+		float ballY = ballPosition.y - Pitch.OUTER_BOTTOM_EDGE_Y;
+		
+		int column = MathUtils.clamp((int) Math.floor(ballX / FIELD_CELL_WIDTH_IN_PX), 0, FIELD_COLUMNS - 1);
+		int row = MathUtils.clamp((int) Math.floor(ballY / FIELD_CELL_HEIGHT_IN_PX), 0, FIELD_ROWS - 1);
+		int cell = column * FIELD_ROWS + row;
+		
+		return team.getDirection() == Direction.NORTH ? cell : FIELD_CELLS - 1 - cell;
+	}
 	
 	/**
 	* Returns a region id depending on the team orientation
@@ -206,10 +230,26 @@ public class Tactic {
 	 */
 	public static int getRegionIndex(Ball ball, Team team)
 	{
-		Vector2 ballLocation = PitchUtils.globalToPitch(ball.getPosition().x, ball.getPosition().y);
+		// static and shared by the simulation threads, so no scratch vector here
+		Vector3 ballPosition = ball.getPosition();
+		return getRegionIndex(ballPosition.x, ballPosition.y, team);
+	}
+
+	/**
+	 * Get the region index of a ball position according to the team's direction,
+	 * see {@link #getRegionIndex(Ball, Team)}
+	 * @param x the ball x in global coordinates
+	 * @param y the ball y in global coordinates
+	 * @param team
+	 * @return region index
+	 */
+	public static int getRegionIndex(float x, float y, Team team)
+	{
+		float ballX = x - Pitch.OUTER_BOTTOM_EDGE_X;
+		float ballY = y - Pitch.OUTER_BOTTOM_EDGE_Y;
 		
-		int xCoord = new Double(ballLocation.x / REGION_WIDTH_IN_PX).intValue();
-		int yCoord = new Double(ballLocation.y / REGION_HEIGHT_IN_PX).intValue();
+		int xCoord = (int) (ballX / REGION_WIDTH_IN_PX);
+		int yCoord = (int) (ballY / REGION_HEIGHT_IN_PX);
 
 		xCoord = xCoord < 0 ? 0 : (xCoord >= REGION_COLUMNS ? REGION_COLUMNS - 1 : xCoord);
 		yCoord = yCoord < 0 ? 0 : (yCoord >= REGION_ROWS ? REGION_ROWS - 1 : yCoord);
@@ -220,37 +260,60 @@ public class Tactic {
 	}
 	
 	/**
-	 * Debug only method that displays active region and tactic's player home location
-	 * @param camera
-	 * @param ball
+	 * Get a pitch region in pitch coordinates
+	 * @param regionIndex the region index
+	 * @param out the rectangle receiving the region
+	 * @return out
 	 */
-	public void showRegionAndExpectedPlayerLocation(OrthographicCamera camera, Ball ball) {
-		// enable transparency
-		Gdx.gl.glEnable(GL20.GL_BLEND);
-		Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
-
-		shapeRenderer.setProjectionMatrix(camera.combined);
+	public static Rectangle getRegion(int regionIndex, Rectangle out) {
+		int column = regionIndex / REGION_ROWS;
+		int row = regionIndex % REGION_ROWS;
+		return out.set(column * REGION_WIDTH_IN_PX, row * REGION_HEIGHT_IN_PX, REGION_WIDTH_IN_PX, REGION_HEIGHT_IN_PX);
+	}
 
-		// draw active region
-		shapeRenderer.begin(ShapeType.Filled);
-		shapeRenderer.setColor(new Color(0.8f, 0, 0, 0.2f));
-		int regionIndex = getRegionIndex(ball, this.team);
-		Rectangle region = this.regions.get(regionIndex);
-		Vector3 regionLocation = PitchUtils.pitchToGlobal(region.x, region.y);
-		shapeRenderer.rect(regionLocation.x, regionLocation.y, region.width, region.height);
+	/**
+	 * Get a position field cell in pitch coordinates
+	 * @param cell the cell index from the team's side, see {@link #getFieldCell(Ball, Team)}
+	 * @param team the team
+	 * @param out the rectangle receiving the cell
+	 * @return out
+	 */
+	public static Rectangle getFieldCellBounds(int cell, Team team, Rectangle out) {
+		if (team.getDirection() != Direction.NORTH) cell = FIELD_CELLS - 1 - cell;
+		int column = cell / FIELD_ROWS;
+		int row = cell % FIELD_ROWS;
+		return out.set(column * FIELD_CELL_WIDTH_IN_PX, row * FIELD_CELL_HEIGHT_IN_PX, FIELD_CELL_WIDTH_IN_PX, FIELD_CELL_HEIGHT_IN_PX);
+	}
 
-		// draw player location
-		for (int playerIndex = 0; playerIndex < 10; playerIndex++) {
-			shapeRenderer.setColor(new Color(1.0f, 0.5f, 0, 0.4f));
-			Vector3 playerLocation = PitchUtils.pitchToGlobal(locations[playerIndex][regionIndex].x, locations[playerIndex][regionIndex].y);
-			shapeRenderer.circle(playerLocation.x, playerLocation.y, 8);
-		}
+	/**
+	 * Get the destination the tactic gives a player when the ball is in a position field cell
+	 * @param playerIndex the player index
+	 * @param cell the cell index from the team's side, see {@link #getFieldCell(Ball, Team)}
+	 * @param out the vector receiving the destination, in global coordinates
+	 * @return out
+	 */
+	public Vector2 getFieldDestination(int playerIndex, int cell, Vector2 out) {
+		int direction = team.getDirection() == Direction.NORTH ? NORTH : SOUTH;
+		int i = cell * EntityStore.PLAYERS_PER_TEAM + playerIndex;
+		return out.set(definition.fieldX[direction][i], definition.fieldY[direction][i]);
+	}
 
-		shapeRenderer.end();
-		Gdx.gl.glDisable(GL20.GL_BLEND);
+	/**
+	 * Get the tactic's location of a player for a given region, in pitch coordinates
+	 * @param playerIndex the player index
+	 * @param regionIndex the region index
+	 * @param out the vector receiving the location
+	 * @return out, or null if the tactic does not define the location
+	 */
+	public Vector2 getLocation(int playerIndex, int regionIndex, Vector2 out) {
+		return this.definition.getLocation(playerIndex, regionIndex, out);
 	}
-	
-	public void dispose() {
-		shapeRenderer.dispose();
+
+	/**
+	 * Get the team using this tactic
+	 * @return the team
+	 */
+	public Team getTeam() {
+		return this.team;
 	}
 }
@@ -5,11 +5,13 @@ import com.senegas.kickoff.pitches.FootballDimensions;
 
 public class Tactic424 extends Tactic implements FootballDimensions {
 
+	public static final String FILE_NAME = "tactics/4-2-4.xml";
+
 	/**
 	 * Constructor 4-2-4 tactic
 	 * @param team
 	 */
 	public Tactic424(Team team) {
-		super(team, "tactics/4-2-4.xml");
+		super(team, FILE_NAME);
 	}
 }
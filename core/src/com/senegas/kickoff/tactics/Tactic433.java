@@ -5,11 +5,13 @@ import com.senegas.kickoff.pitches.FootballDimensions;
 
 public class Tactic433 extends Tactic implements FootballDimensions {
 
+	public static final String FILE_NAME = "tactics/4-3-3.xml";
+
 	/**
 	 * Constructor 4-3-3 tactic
 	 * @param team
 	 */
 	public Tactic433(Team team) {
-		super(team, "tactics/4-3-3.xml");
+		super(team, FILE_NAME);
 	}
 }
@@ -0,0 +1,160 @@
+package com.senegas.kickoff.tactics;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.senegas.kickoff.entities.EntityStore;
+import com.senegas.kickoff.pitches.Pitch;
+
+import java.io.IOException;
+
+/**
+ * Team independent data of a tactic: the player locations and the destination tables
+ * compiled from them. A definition is never modified once built, so a single instance is
+ * shared by all the teams and matches using the tactic, see {@link TacticRegistry}.
+ * @author Sébastien Sénégas
+ *
+ */
+public final class TacticDefinition {
+	private final String name;
+	private final String fileName;
+	/** Locations in pitch coordinates indexed by [player][location], null if not defined */
+	private final Vector2[][] locations;
+	/**
+	 * Player destinations in global coordinates compiled from the locations, indexed by
+	 * [direction][location * PLAYERS_PER_TEAM + player], see {@link #compile()}
+	 */
+	final float[][] destinationX = new float[2][Tactic.LOCATIONS_COUNT * EntityStore.PLAYERS_PER_TEAM];
+	final float[][] destinationY = new float[2][Tactic.LOCATIONS_COUNT * EntityStore.PLAYERS_PER_TEAM];
+	/**
+	 * Player destinations in global coordinates for each cell of the position field, indexed by
+	 * [direction][cell * PLAYERS_PER_TEAM + player], see {@link #compileField()}
+	 */
+	final float[][] fieldX = new float[2][Tactic.FIELD_CELLS * EntityStore.PLAYERS_PER_TEAM];
+	final float[][] fieldY = new float[2][Tactic.FIELD_CELLS * EntityStore.PLAYERS_PER_TEAM];
+
+	/**
+	 * Constructor
+	 * @param name the tactic name
+	 * @param fileName the tactic file
+	 * @param locations the locations indexed by [player][location]
+	 */
+	private TacticDefinition(String name, String fileName, Vector2[][] locations) {
+		this.name = name;
+		this.fileName = fileName;
+		this.locations = locations;
+
+		compile();
+		compileField();
+	}
+
+	/**
+	 * Load a tactic definition, see {@link TacticFile}
+	 * @param fileName the tactic file, e.g. tactics/4-3-3.xml
+	 * @return the definition
+	 * @throws GdxRuntimeException if the file cannot be read
+	 */
+	static TacticDefinition load(String fileName) {
+		try {
+			TacticFile file = TacticFile.load(fileName);
+			Gdx.app.log("Tactic", "Loaded " + file.name + " from " + fileName);
+			return new TacticDefinition(file.name, fileName, file.locations);
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Cannot load the tactic " + fileName, e);
+		}
+	}
+
+	/**
+	 * Compile the player locations into destinations in global coordinates, for a team
+	 * heading north and for a team heading south (mirrored locations)
+	 */
+	private void compile() {
+		for (int location = 0; location < Tactic.LOCATIONS_COUNT; location++) {
+			for (int playerIndex = 0; playerIndex < EntityStore.PLAYERS_PER_TEAM; playerIndex++) {
+				Vector2 playerLocation = this.locations[playerIndex][location];
+				if (playerLocation == null) continue; // not defined by the tactic file
+
+				int i = location * EntityStore.PLAYERS_PER_TEAM + playerIndex;
+				destinationX[Tactic.NORTH][i] = playerLocation.x + Pitch.OUTER_BOTTOM_EDGE_X;
+				destinationY[Tactic.NORTH][i] = playerLocation.y + Pitch.OUTER_BOTTOM_EDGE_Y;
+				destinationX[Tactic.SOUTH][i] = ((float)Pitch.PITCH_WIDTH_IN_PX - playerLocation.x) + Pitch.OUTER_BOTTOM_EDGE_X;
+				destinationY[Tactic.SOUTH][i] = ((float)Pitch.PITCH_HEIGHT_IN_PX - playerLocation.y) + Pitch.OUTER_BOTTOM_EDGE_Y;
+			}
+		}
+	}
+
+	/**
+	 * Derive the position field from the area locations: the location of a player in a cell
+	 * is the bilinear interpolation of the player's locations in the four closest regions,
+	 * taken at the region centres. A ball moving across the pitch then moves the players
+	 * smoothly instead of snapping them from a formation to the next at the region borders.
+	 */
+	private void compileField() {
+		for (int column = 0; column < Tactic.FIELD_COLUMNS; column++) {
+			// cell centre in region units, from the centre of the first region to the centre of the last one
+			float u = MathUtils.clamp((column + 0.5f) * Tactic.FIELD_CELL_WIDTH_IN_PX / Tactic.REGION_WIDTH_IN_PX - 0.5f, 0, Tactic.REGION_COLUMNS - 1);
+			int column0 = Math.min((int) u, Tactic.REGION_COLUMNS - 2);
+			float s = u - column0;
+
+			for (int row = 0; row < Tactic.FIELD_ROWS; row++) {
+				float v = MathUtils.clamp((row + 0.5f) * Tactic.FIELD_CELL_HEIGHT_IN_PX / Tactic.REGION_HEIGHT_IN_PX - 0.5f, 0, Tactic.REGION_ROWS - 1);
+				int row0 = Math.min((int) v, Tactic.REGION_ROWS - 2);
+				float t = v - row0;
+
+				int area00 = Tactic.Location.area1.ordinal() + column0 * Tactic.REGION_ROWS + row0;
+				int area01 = area00 + 1;
+				int area10 = area00 + Tactic.REGION_ROWS;
+				int area11 = area10 + 1;
+
+				int cell = column * Tactic.FIELD_ROWS + row;
+				for (int playerIndex = 0; playerIndex < EntityStore.PLAYERS_PER_TEAM; playerIndex++) {
+					float x = bilinear(destinationX[Tactic.NORTH], playerIndex, area00, area01, area10, area11, s, t) - Pitch.OUTER_BOTTOM_EDGE_X;
+					float y = bilinear(destinationY[Tactic.NORTH], playerIndex, area00, area01, area10, area11, s, t) - Pitch.OUTER_BOTTOM_EDGE_Y;
+
+					int i = cell * EntityStore.PLAYERS_PER_TEAM + playerIndex;
+					fieldX[Tactic.NORTH][i] = x + Pitch.OUTER_BOTTOM_EDGE_X;
+					fieldY[Tactic.NORTH][i] = y + Pitch.OUTER_BOTTOM_EDGE_Y;
+					fieldX[Tactic.SOUTH][i] = ((float)Pitch.PITCH_WIDTH_IN_PX - x) + Pitch.OUTER_BOTTOM_EDGE_X;
+					fieldY[Tactic.SOUTH][i] = ((float)Pitch.PITCH_HEIGHT_IN_PX - y) + Pitch.OUTER_BOTTOM_EDGE_Y;
+				}
+			}
+		}
+	}
+
+	private static float bilinear(float[] table, int playerIndex, int area00, int area01, int area10, int area11, float s, float t) {
+		float v00 = table[area00 * EntityStore.PLAYERS_PER_TEAM + playerIndex];
+		float v01 = table[area01 * EntityStore.PLAYERS_PER_TEAM + playerIndex];
+		float v10 = table[area10 * EntityStore.PLAYERS_PER_TEAM + playerIndex];
+		float v11 = table[area11 * EntityStore.PLAYERS_PER_TEAM + playerIndex];
+		return (v00 * (1 - t) + v01 * t) * (1 - s) + (v10 * (1 - t) + v11 * t) * s;
+	}
+
+	/**
+	 * Get the tactic name
+	 * @return the tactic name
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Get the file the tactic was loaded from
+	 * @return the file name
+	 */
+	public String getFileName() {
+		return this.fileName;
+	}
+
+	/**
+	 * Get the tactic's location of a player for a given location index, in pitch coordinates
+	 * @param playerIndex the player index
+	 * @param location the location index
+	 * @param out the vector receiving the location
+	 * @return out, or null if the tactic does not define the location
+	 */
+	public Vector2 getLocation(int playerIndex, int location, Vector2 out) {
+		Vector2 playerLocation = this.locations[playerIndex][location];
+		return playerLocation != null ? out.set(playerLocation) : null;
+	}
+}
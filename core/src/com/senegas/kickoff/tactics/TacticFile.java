@@ -0,0 +1,260 @@
+package com.senegas.kickoff.tactics;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.XmlReader;
+import com.badlogic.gdx.utils.XmlReader.Element;
+import com.senegas.kickoff.entities.EntityStore;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.zip.CRC32;
+
+/**
+ * Player locations of a tactic, read from a tactic xml file or from its compiled form
+ * <p>
+ * The compiled form sits next to the xml file (tactics/4-2-4.xml compiles to tactics/4-2-4.bin)
+ * and is laid out as follow, big endian:
+ * <pre>
+ * int     magic ('KOTC')
+ * int     version
+ * int     players count
+ * int     locations count
+ * int     length of the xml file it was compiled from
+ * int     CRC-32 of the xml file
+ * short   name length, followed by the name in UTF-8
+ * float[] x, y of each location of each player, NaN if not defined by the tactic
+ * </pre>
+ * The locations are stored in {@link Tactic.Location} order, so the version must be bumped
+ * whenever that enumeration changes. A compiled file whose xml length or CRC does not match
+ * the xml file any more is out of date and ignored.
+ * <p>
+ * The stored length is checked first, which only needs the size of the xml file. When it
+ * matches, the xml file is still read to check its CRC: what the compiled form saves is the
+ * parse, and that read is accepted since {@link TacticRegistry} loads each file once per JVM.
+ * @author Sébastien Sénégas
+ *
+ */
+public class TacticFile {
+	public static final String XML_EXTENSION = "xml";
+	public static final String COMPILED_EXTENSION = "bin";
+	public static final int VERSION = 2;
+
+	private static final int MAGIC = 0x4B4F5443; // 'KOTC'
+	private static final int LOCATIONS_COUNT = Tactic.Location.values().length;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final int HEADER = 26;
+
+	final String name;
+	/** Locations in pitch coordinates indexed by [player][location], null if not defined */
+	final Vector2[][] locations;
+
+	/**
+	 * Constructor
+	 * @param name the tactic name
+	 * @param locations the locations indexed by [player][location]
+	 */
+	private TacticFile(String name, Vector2[][] locations) {
+		this.name = name;
+		this.locations = locations;
+	}
+
+	/**
+	 * Load a tactic from its compiled form when there is an up to date one,
+	 * from the xml file otherwise
+	 * @param fileName the xml file name, e.g. tactics/4-2-4.xml
+	 * @return the tactic file
+	 * @throws IOException
+	 */
+	static TacticFile load(String fileName) throws IOException {
+		FileHandle xml = Gdx.files.internal(fileName);
+		FileHandle compiled = compiledFile(xml);
+		if (compiled.exists()) {
+			ByteBuffer buffer = map(compiled);
+			TacticFile file = null;
+			if (getSourceLength(buffer) == xml.length()) {
+				byte[] source = xml.readBytes();
+				file = read(buffer, source.length, checksum(source));
+			}
+			if (file != null) return file;
+			Gdx.app.error("TacticFile", compiled.path() + " is not an up to date version " + VERSION + " tactic, falling back to xml");
+		}
+
+		return parseXml(xml);
+	}
+
+	/**
+	 * Check whether the compiled form of a tactic xml file exists and matches the xml file
+	 * @param xml the tactic xml file
+	 * @return true if the compiled file is up to date
+	 */
+	public static boolean isCompiled(FileHandle xml) {
+		FileHandle compiled = compiledFile(xml);
+		if (!compiled.exists()) return false;
+
+		// read rather than mapped, so the file is not held open when compiled again
+		ByteBuffer buffer = ByteBuffer.wrap(compiled.readBytes());
+		if (getSourceLength(buffer) != xml.length()) return false;
+
+		byte[] source = xml.readBytes();
+		return read(buffer, source.length, checksum(source)) != null;
+	}
+
+	/**
+	 * Compile a tactic xml file next to it
+	 * @param xml the tactic xml file
+	 * @return the compiled file
+	 * @throws IOException
+	 */
+	public static FileHandle compile(FileHandle xml) throws IOException {
+		FileHandle compiled = compiledFile(xml);
+		byte[] source = xml.readBytes();
+		parseXml(xml).write(compiled, source.length, checksum(source));
+
+		return compiled;
+	}
+
+	/**
+	 * Get the compiled file of a tactic xml file
+	 * @param xml the tactic xml file
+	 * @return the compiled file, which may not exist
+	 */
+	public static FileHandle compiledFile(FileHandle xml) {
+		return xml.sibling(xml.nameWithoutExtension() + "." + COMPILED_EXTENSION);
+	}
+
+	/**
+	 * Parse a tactic xml file
+	 * @param xml the tactic xml file
+	 * @return the tactic file
+	 * @throws IOException
+	 */
+	static TacticFile parseXml(FileHandle xml) throws IOException {
+		Element root = new XmlReader().parse(xml);
+		Vector2[][] locations = new Vector2[EntityStore.PLAYERS_PER_TEAM][LOCATIONS_COUNT];
+
+		Array<Element> players = root.getChildrenByName("player");
+		int playerIndex = 0;
+		for (Element player : players) {
+			Array<Element> regions = player.getChildrenByName("region");
+			for (Element region : regions) {
+				String regionName = region.get("name"); // region name
+				locations[playerIndex][Tactic.Location.valueOf(regionName).ordinal()] = new Vector2(region.getFloat("x"), region.getFloat("y"));
+			}
+			playerIndex++;
+		}
+
+		return new TacticFile(root.get("name"), locations);
+	}
+
+	private static int checksum(byte[] source) {
+		CRC32 crc = new CRC32();
+		crc.update(source, 0, source.length);
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * Get the xml file length stored in a compiled tactic, without moving the buffer
+	 * @param buffer the compiled tactic
+	 * @return the length, -1 if the header is truncated
+	 */
+	private static long getSourceLength(ByteBuffer buffer) {
+		return buffer.remaining() < HEADER ? -1 : buffer.getInt(buffer.position() + 16);
+	}
+
+	/**
+	 * Read a compiled tactic
+	 * @param buffer the compiled tactic
+	 * @param sourceLength the length of the xml file it should be compiled from
+	 * @param sourceChecksum the CRC-32 of the xml file
+	 * @return the tactic file, null if the header does not match this version and xml file
+	 *         or if the content is truncated or corrupt
+	 */
+	static TacticFile read(ByteBuffer buffer, int sourceLength, int sourceChecksum) {
+		try {
+			if (buffer.remaining() < HEADER
+			    || buffer.getInt() != MAGIC
+			    || buffer.getInt() != VERSION
+			    || buffer.getInt() != EntityStore.PLAYERS_PER_TEAM
+			    || buffer.getInt() != LOCATIONS_COUNT
+			    || buffer.getInt() != sourceLength
+			    || buffer.getInt() != sourceChecksum) {
+				return null;
+			}
+
+			int nameLength = buffer.getShort();
+			if (nameLength < 0 || buffer.remaining() != nameLength + EntityStore.PLAYERS_PER_TEAM * LOCATIONS_COUNT * 8) {
+				return null;
+			}
+			byte[] name = new byte[nameLength];
+			buffer.get(name);
+
+			Vector2[][] locations = new Vector2[EntityStore.PLAYERS_PER_TEAM][LOCATIONS_COUNT];
+			for (int playerIndex = 0; playerIndex < EntityStore.PLAYERS_PER_TEAM; playerIndex++) {
+				for (int location = 0; location < LOCATIONS_COUNT; location++) {
+					float x = buffer.getFloat();
+					float y = buffer.getFloat();
+					if (!Float.isNaN(x)) {
+						locations[playerIndex][location] = new Vector2(x, y);
+					}
+				}
+			}
+
+			return new TacticFile(new String(name, UTF8), locations);
+		} catch (BufferUnderflowException e) {
+			return null; // not expected once the sizes are checked, a corrupt file falls back to xml anyway
+		}
+	}
+
+	/**
+	 * Write the compiled form of the tactic
+	 * @param compiled the destination file
+	 * @param sourceLength the length of the xml file the tactic was parsed from
+	 * @param sourceChecksum the CRC-32 of the xml file
+	 * @throws IOException
+	 */
+	void write(FileHandle compiled, int sourceLength, int sourceChecksum) throws IOException {
+		DataOutputStream out = new DataOutputStream(compiled.write(false, 4096));
+		try {
+			byte[] name = this.name.getBytes(UTF8);
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(EntityStore.PLAYERS_PER_TEAM);
+			out.writeInt(LOCATIONS_COUNT);
+			out.writeInt(sourceLength);
+			out.writeInt(sourceChecksum);
+			out.writeShort(name.length);
+			out.write(name);
+
+			for (int playerIndex = 0; playerIndex < EntityStore.PLAYERS_PER_TEAM; playerIndex++) {
+				for (int location = 0; location < LOCATIONS_COUNT; location++) {
+					Vector2 playerLocation = this.locations[playerIndex][location];
+					out.writeFloat(playerLocation != null ? playerLocation.x : Float.NaN);
+					out.writeFloat(playerLocation != null ? playerLocation.y : Float.NaN);
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Map a file in memory, or read it in a heap buffer when it cannot be mapped
+	 * (e.g. an internal file packed in the jar)
+	 * @param file the file
+	 * @return the file content
+	 */
+	private static ByteBuffer map(FileHandle file) {
+		try {
+			return file.map();
+		} catch (GdxRuntimeException e) {
+			return ByteBuffer.wrap(file.readBytes());
+		}
+	}
+}
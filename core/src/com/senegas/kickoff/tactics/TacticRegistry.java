@@ -0,0 +1,54 @@
+package com.senegas.kickoff.tactics;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads each tactic file once and shares its definition between all the teams and
+ * matches of the application, including the ones simulated on other threads
+ * <p>
+ * Tactic files are read through {@code Gdx.files}, so the registry expects a libGDX
+ * application to be running.
+ * @author Sébastien Sénégas
+ *
+ */
+public final class TacticRegistry {
+	private static final ConcurrentHashMap<String, TacticDefinition> definitions = new ConcurrentHashMap<String, TacticDefinition>();
+
+	private TacticRegistry() {}
+
+	/**
+	 * Get the definition of a tactic, loading it on first use
+	 * @param fileName the tactic file, e.g. tactics/4-3-3.xml
+	 * @return the shared definition
+	 * @throws com.badlogic.gdx.utils.GdxRuntimeException if the file cannot be read, nothing is
+	 *         kept so the next call tries again
+	 */
+	public static TacticDefinition get(String fileName) {
+		TacticDefinition definition = definitions.get(fileName);
+		return definition != null ? definition : load(fileName);
+	}
+
+	/**
+	 * Load a definition, once even when several threads ask for it at the same time
+	 * @param fileName the tactic file
+	 * @return the shared definition
+	 * @throws com.badlogic.gdx.utils.GdxRuntimeException if the file cannot be read
+	 */
+	private static synchronized TacticDefinition load(String fileName) {
+		TacticDefinition definition = definitions.get(fileName);
+		if (definition == null) {
+			definition = TacticDefinition.load(fileName);
+			definitions.put(fileName, definition);
+		}
+
+		return definition;
+	}
+
+	/**
+	 * Forget the loaded definitions, e.g. after the tactic files changed.
+	 * Tactics already built keep their definition.
+	 */
+	public static void clear() {
+		definitions.clear();
+	}
+}
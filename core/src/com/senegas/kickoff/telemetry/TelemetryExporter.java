@@ -0,0 +1,337 @@
+package com.senegas.kickoff.telemetry;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.senegas.kickoff.entities.Ball;
+import com.senegas.kickoff.entities.EntityStore;
+import com.senegas.kickoff.entities.Team;
+import com.senegas.kickoff.simulation.MatchSimulation;
+import com.senegas.kickoff.tactics.Tactic;
+import com.senegas.kickoff.utils.SpscQueue;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Exports the tick by tick positions of a match to a columnar file for analysis
+ * <p>
+ * The file is laid out as follow, little endian so it loads as is into numpy or similar:
+ * <pre>
+ * int     magic ('KOTL')
+ * int     version
+ * int     ticks per second
+ * int     sample interval, a row every that many ticks
+ * int     columns count
+ * columns, each one being
+ *   byte  type, 'i' for int32, 'f' for float32, 'b' for int8
+ *   short name length, followed by the name in UTF-8
+ * chunks, each one being
+ *   int   rows count
+ *   the values of each column in turn, rows count of them
+ * </pre>
+ * The columns are the tick, the ball position, the position of each player, home team first,
+ * in global pixel coordinates, and the region of the ball for each team
+ * (see {@link Tactic#getRegionIndex(Ball, com.senegas.kickoff.entities.Team)}).
+ * <p>
+ * The rows are written straight into the columns of a chunk taken from a small pool, and a
+ * full chunk is passed to a writer thread through a lock-free queue. Recording a row never
+ * waits: when the writer lags behind until the pool is empty, the rows are dropped until a
+ * chunk comes back, and the tick column shows the gap.
+ */
+public class TelemetryExporter implements Closeable {
+	/** Directory of the exports in the external storage, next to the recordings */
+	public static final String DIRECTORY = ".kickoff/telemetry";
+	public static final String EXTENSION = "kot";
+	public static final int VERSION = 1;
+
+	private static final int MAGIC = 0x4B4F544C; // 'KOTL'
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	/** Rows per chunk */
+	static final int CHUNK_ROWS = 1024;
+	/** Chunks of the pool */
+	private static final int POOL_SIZE = 8;
+	/** Writer sleep while there is no chunk to write, in nanoseconds */
+	private static final long IDLE_WAIT = 2000000;
+
+	/** Float columns, offsets in {@link Chunk#values} in rows and in the captured positions */
+	public static final int BALL_X = 0, BALL_Y = 1, BALL_Z = 2, PLAYERS = 3;
+	/** Float columns, also the length of the positions captured by {@link #capture(MatchSimulation, float[])} */
+	public static final int FLOAT_COLUMNS = PLAYERS + 2 * EntityStore.PLAYER_COUNT;
+
+	private final FileHandle file;
+	private final FileChannel channel;
+	private final int sampleInterval;
+	private final Team homeTeam;
+	private final Team awayTeam;
+	private final float[] positions = new float[FLOAT_COLUMNS];
+	private final SpscQueue<Chunk> fullChunks = new SpscQueue<Chunk>(POOL_SIZE);
+	private final SpscQueue<Chunk> freeChunks = new SpscQueue<Chunk>(POOL_SIZE);
+	private final Thread writer;
+	private volatile boolean closing;
+	/** Set by the writer when the file cannot be written, the following chunks are discarded */
+	private volatile IOException failure;
+
+	/** Chunk being filled, null if none was free */
+	private Chunk chunk;
+	private int droppedRows;
+	private boolean closed;
+
+	/**
+	 * Rows of a chunk, stored column by column
+	 */
+	static final class Chunk {
+		final int[] ticks = new int[CHUNK_ROWS];
+		/** Float column c starts at c * CHUNK_ROWS */
+		final float[] values = new float[FLOAT_COLUMNS * CHUNK_ROWS];
+		final byte[] homeRegions = new byte[CHUNK_ROWS];
+		final byte[] awayRegions = new byte[CHUNK_ROWS];
+		int rows;
+	}
+
+	/**
+	 * Constructor, writes the file header and starts the writer thread
+	 * @param file the export file, replaced if it exists
+	 * @param simulation the exported match
+	 * @param sampleInterval export a row every that many ticks, 1 for every tick
+	 * @throws IOException
+	 */
+	public TelemetryExporter(FileHandle file, MatchSimulation simulation, int sampleInterval) throws IOException {
+		if (sampleInterval <= 0) {
+			throw new IllegalArgumentException("sampleInterval must be positive: " + sampleInterval);
+		}
+		this.file = file;
+		this.sampleInterval = sampleInterval;
+		this.homeTeam = simulation.getHomeTeam();
+		this.awayTeam = simulation.getAwayTeam();
+		file.parent().mkdirs();
+		channel = new FileOutputStream(file.file()).getChannel();
+		writeHeader(simulation.getTicksPerSecond());
+
+		for (int i = 0; i < POOL_SIZE; i++) {
+			freeChunks.offer(new Chunk());
+		}
+
+		writer = new Thread(new Writer(), "TelemetryExporter");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Get a new export file, named after the current time
+	 * @return the file in the {@link #DIRECTORY}
+	 */
+	public static FileHandle newFile() {
+		String name = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.ROOT).format(new Date());
+		return Gdx.files.external(DIRECTORY).child(name + "." + EXTENSION);
+	}
+
+	private void writeHeader(int ticksPerSecond) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(ticksPerSecond);
+		header.putInt(sampleInterval);
+		header.putInt(1 + FLOAT_COLUMNS + 2);
+
+		putColumn(header, 'i', "tick");
+		putColumn(header, 'f', "ball_x");
+		putColumn(header, 'f', "ball_y");
+		putColumn(header, 'f', "ball_z");
+		for (int i = 0; i < EntityStore.PLAYER_COUNT; i++) {
+			String player = (i < EntityStore.PLAYERS_PER_TEAM ? "home" : "away") + (i % EntityStore.PLAYERS_PER_TEAM);
+			putColumn(header, 'f', player + "_x");
+			putColumn(header, 'f', player + "_y");
+		}
+		putColumn(header, 'b', "home_region");
+		putColumn(header, 'b', "away_region");
+
+		header.flip();
+		writeFully(header);
+	}
+
+	private static void putColumn(ByteBuffer out, char type, String name) {
+		byte[] bytes = name.getBytes(UTF8);
+		out.put((byte) type);
+		out.putShort((short) bytes.length);
+		out.put(bytes);
+	}
+
+	/**
+	 * Export the current tick of the match if it is sampled, to be called after each simulation step
+	 * @param simulation the exported match
+	 */
+	public void record(MatchSimulation simulation) {
+		if (closed || simulation.getTick() % sampleInterval != 0) return;
+
+		capture(simulation, positions);
+		record(simulation.getTick(), positions);
+	}
+
+	/**
+	 * Export a tick captured earlier if it is sampled, see {@link #capture(MatchSimulation, float[])}
+	 * @param tick the tick of the match once stepped, see {@link MatchSimulation#getTick()}
+	 * @param positions the {@link #FLOAT_COLUMNS} positions of the tick
+	 */
+	public void record(long tick, float[] positions) {
+		int row = nextRow(tick);
+		if (row < 0) return;
+
+		float[] values = chunk.values;
+		for (int column = 0; column < FLOAT_COLUMNS; column++) {
+			values[column * CHUNK_ROWS + row] = positions[column];
+		}
+		chunk.homeRegions[row] = (byte) Tactic.getRegionIndex(positions[BALL_X], positions[BALL_Y], homeTeam);
+		chunk.awayRegions[row] = (byte) Tactic.getRegionIndex(positions[BALL_X], positions[BALL_Y], awayTeam);
+
+		if (chunk.rows == CHUNK_ROWS) publish();
+	}
+
+	/**
+	 * Capture the exported positions of the current tick of a match
+	 * @param simulation the match
+	 * @param positions the array receiving the {@link #FLOAT_COLUMNS} positions, in the column order
+	 */
+	public static void capture(MatchSimulation simulation, float[] positions) {
+		EntityStore store = simulation.getStore();
+		positions[BALL_X] = store.x[EntityStore.BALL];
+		positions[BALL_Y] = store.y[EntityStore.BALL];
+		positions[BALL_Z] = store.z[EntityStore.BALL];
+		for (int i = 0, column = PLAYERS; i < EntityStore.PLAYER_COUNT; i++, column += 2) {
+			positions[column] = store.x[i];
+			positions[column + 1] = store.y[i];
+		}
+	}
+
+	/**
+	 * Start a row for a tick if it is sampled and a chunk is available
+	 * @param tick the tick
+	 * @return the row in {@link #chunk}, -1 if the tick is not exported
+	 */
+	private int nextRow(long tick) {
+		if (closed || tick % sampleInterval != 0) return -1;
+
+		if (chunk == null) {
+			chunk = freeChunks.poll();
+			if (chunk == null) {
+				droppedRows++;
+				return -1;
+			}
+			chunk.rows = 0;
+		}
+
+		int row = chunk.rows++;
+		chunk.ticks[row] = (int) tick;
+		return row;
+	}
+
+	/**
+	 * Hand the chunk being filled to the writer
+	 */
+	private void publish() {
+		fullChunks.offer(chunk); // never full, the queue holds the whole pool
+		chunk = null;
+	}
+
+	/**
+	 * Write the last rows and close the file, waiting for the writer to finish
+	 * @throws IOException if the file could not be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) return;
+
+		closed = true;
+		if (chunk != null && chunk.rows > 0) publish();
+		closing = true;
+		LockSupport.unpark(writer);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		channel.close();
+
+		if (droppedRows > 0) {
+			Gdx.app.error("TelemetryExporter", droppedRows + " rows dropped from " + file.path());
+		}
+		if (failure != null) throw failure;
+	}
+
+	/**
+	 * Get the number of rows dropped so far because the writer lagged behind
+	 * @return the number of rows
+	 */
+	public int getDroppedRows() {
+		return droppedRows;
+	}
+
+	/**
+	 * Get the export file
+	 * @return the file
+	 */
+	public FileHandle getFile() {
+		return file;
+	}
+
+	private void writeFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Writes the full chunks, column after column
+	 */
+	private class Writer implements Runnable {
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(4 + CHUNK_ROWS * (4 + FLOAT_COLUMNS * 4 + 2))
+		                                            .order(ByteOrder.LITTLE_ENDIAN);
+
+		@Override
+		public void run() {
+			while (true) {
+				// read before polling, so no chunk published before closing is missed
+				boolean last = closing;
+				Chunk full = fullChunks.poll();
+				if (full == null) {
+					if (last) break;
+					LockSupport.parkNanos(IDLE_WAIT);
+					continue;
+				}
+
+				if (failure == null) {
+					try {
+						write(full);
+					} catch (IOException e) {
+						failure = e;
+					}
+				}
+				freeChunks.offer(full);
+			}
+		}
+
+		private void write(Chunk full) throws IOException {
+			int rows = full.rows;
+			buffer.clear();
+			buffer.putInt(rows);
+			buffer.asIntBuffer().put(full.ticks, 0, rows);
+			buffer.position(buffer.position() + rows * 4);
+			for (int column = 0; column < FLOAT_COLUMNS; column++) {
+				buffer.asFloatBuffer().put(full.values, column * CHUNK_ROWS, rows);
+				buffer.position(buffer.position() + rows * 4);
+			}
+			buffer.put(full.homeRegions, 0, rows);
+			buffer.put(full.awayRegions, 0, rows);
+			buffer.flip();
+			writeFully(buffer);
+		}
+	}
+}
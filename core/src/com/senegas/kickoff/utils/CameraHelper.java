@@ -23,7 +23,8 @@ public class CameraHelper {
     public void update (float deltaTime) {
         if (!hasTarget()) return;
 
-        position.lerp(target, FOLLOW_SPEED * deltaTime);
+        // exponential smoothing, converges at the same pace whatever the frame rate
+        position.lerp(target, 1.0f - (float) Math.exp(-FOLLOW_SPEED * deltaTime));
 
         // Prevent camera from moving down too far
         position.y = Math.max(-1f, position.y);
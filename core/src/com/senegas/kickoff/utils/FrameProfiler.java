@@ -0,0 +1,112 @@
+package com.senegas.kickoff.utils;
+
+import java.util.Arrays;
+
+/**
+ * Times the phases of the rendered frames with {@link System#nanoTime()} and keeps the
+ * last {@link #FRAMES} frames of each phase in a ring buffer, to tell which phase caused a hitch
+ * <p>
+ * A phase timed several times in a frame (e.g. the simulation phases when the frame runs
+ * several ticks) adds up. Nothing allocates once the profiler is built.
+ */
+public class FrameProfiler {
+	public enum Phase {
+		FRAME("frame"), INPUT("input"), FSM("fsm"), ENTITIES("entities"), COLLISIONS("collisions"),
+		CAMERA("camera"), MAP("map"), SPRITES("sprites"), SCANNER("scanner"), DEBUG("debug");
+
+		private final String label;
+
+		Phase(String label) {
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+	}
+
+	/** Number of frames kept per phase */
+	public static final int FRAMES = 240;
+	private static final Phase[] PHASES = Phase.values();
+
+	/** Frame durations in nanoseconds, indexed by [phase][frame] */
+	private final long[][] samples = new long[PHASES.length][FRAMES];
+	private final long[] current = new long[PHASES.length];
+	private final long[] started = new long[PHASES.length];
+	private final long[] sorted = new long[FRAMES];
+	private int frame;
+	private int frameCount;
+
+	/**
+	 * Start timing a phase
+	 * @param phase the phase
+	 */
+	public void begin(Phase phase) {
+		started[phase.ordinal()] = System.nanoTime();
+	}
+
+	/**
+	 * Stop timing a phase, the time since {@link #begin(Phase)} is added to the current frame
+	 * @param phase the phase
+	 */
+	public void end(Phase phase) {
+		int index = phase.ordinal();
+		current[index] += System.nanoTime() - started[index];
+	}
+
+	/**
+	 * Store the current frame durations and start a new frame
+	 */
+	public void endFrame() {
+		for (int phase = 0; phase < PHASES.length; phase++) {
+			samples[phase][frame] = current[phase];
+			current[phase] = 0;
+		}
+		frame = (frame + 1) % FRAMES;
+		if (frameCount < FRAMES) frameCount++;
+	}
+
+	/**
+	 * Compute the percentiles of a phase over the stored frames
+	 * @param phase the phase
+	 * @param percentiles the percentiles to compute, in [0, 100]
+	 * @param out receives the durations in nanoseconds, one per percentile
+	 * @return out
+	 */
+	public long[] getPercentiles(Phase phase, float[] percentiles, long[] out) {
+		if (frameCount == 0) {
+			Arrays.fill(out, 0);
+			return out;
+		}
+
+		System.arraycopy(samples[phase.ordinal()], 0, sorted, 0, frameCount);
+		Arrays.sort(sorted, 0, frameCount);
+		for (int i = 0; i < percentiles.length; i++) {
+			int rank = (int) Math.ceil(percentiles[i] / 100 * frameCount) - 1;
+			out[i] = sorted[Math.max(0, Math.min(frameCount - 1, rank))];
+		}
+		return out;
+	}
+
+	/**
+	 * Get the longest duration of a phase over the stored frames
+	 * @param phase the phase
+	 * @return the duration in nanoseconds
+	 */
+	public long getMax(Phase phase) {
+		long[] phaseSamples = samples[phase.ordinal()];
+		long max = 0;
+		for (int i = 0; i < frameCount; i++) {
+			max = Math.max(max, phaseSamples[i]);
+		}
+		return max;
+	}
+
+	/**
+	 * Get the number of stored frames
+	 * @return the frame count, at most {@link #FRAMES}
+	 */
+	public int getFrameCount() {
+		return frameCount;
+	}
+}
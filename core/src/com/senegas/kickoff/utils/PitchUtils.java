@@ -21,4 +21,22 @@ public final class PitchUtils {
 	public static Vector3 pitchToGlobal(float x, float y) {
 		return new Vector3(x + Pitch.OUTER_BOTTOM_EDGE_X, y + Pitch.OUTER_BOTTOM_EDGE_Y, 0);
 	}
+
+	/**
+	 * Allocation free variant of {@link #globalToPitch(float, float)}
+	 * @param out the vector receiving the pitch location
+	 * @return out
+	 */
+	public static Vector2 globalToPitch(float x, float y, Vector2 out) {
+		return out.set(x - Pitch.OUTER_BOTTOM_EDGE_X, y - Pitch.OUTER_BOTTOM_EDGE_Y);
+	}
+
+	/**
+	 * Allocation free variant of {@link #pitchToGlobal(float, float)}
+	 * @param out the vector receiving the global location
+	 * @return out
+	 */
+	public static Vector3 pitchToGlobal(float x, float y, Vector3 out) {
+		return out.set(x + Pitch.OUTER_BOTTOM_EDGE_X, y + Pitch.OUTER_BOTTOM_EDGE_Y, 0);
+	}
 }
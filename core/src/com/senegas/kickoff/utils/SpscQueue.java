@@ -0,0 +1,67 @@
+package com.senegas.kickoff.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free queue for exactly one producer thread and one consumer thread
+ * <p>
+ * Neither side ever blocks: {@link #offer(Object)} fails when the queue is full and
+ * {@link #poll()} returns null when it is empty, each side deciding how to wait or what to drop.
+ * @param <T> the item type
+ */
+public final class SpscQueue<T> {
+	private final Object[] items;
+	private final int mask;
+	/** Next slot to poll, only written by the consumer */
+	private final AtomicLong head = new AtomicLong();
+	/** Next slot to offer, only written by the producer */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * Constructor
+	 * @param capacity the queue capacity, rounded up to a power of two
+	 */
+	public SpscQueue(int capacity) {
+		int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+		items = new Object[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * Add an item, from the producer thread
+	 * @param item the item
+	 * @return false if the queue is full
+	 */
+	public boolean offer(T item) {
+		long t = tail.get();
+		if (t - head.get() == items.length) return false;
+
+		items[(int) t & mask] = item;
+		tail.lazySet(t + 1); // publishes the item
+		return true;
+	}
+
+	/**
+	 * Take the oldest item, from the consumer thread
+	 * @return the item, null if the queue is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public T poll() {
+		long h = head.get();
+		if (h == tail.get()) return null;
+
+		int i = (int) h & mask;
+		T item = (T) items[i];
+		items[i] = null;
+		head.lazySet(h + 1); // frees the slot
+		return item;
+	}
+
+	/**
+	 * Get the number of items, exact only from the producer or the consumer thread
+	 * @return the number of items
+	 */
+	public int size() {
+		return (int) (tail.get() - head.get());
+	}
+}
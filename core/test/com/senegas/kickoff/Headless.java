@@ -0,0 +1,24 @@
+package com.senegas.kickoff;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+/**
+ * Headless application for the tests building matches, whose tactic files are read through Gdx.files
+ */
+public final class Headless {
+	private Headless() {}
+
+	/**
+	 * Start the application, once per JVM
+	 */
+	public static synchronized void start() {
+		if (Gdx.app != null) return;
+
+		new HeadlessApplication(new ApplicationAdapter() {}, new HeadlessApplicationConfiguration());
+		Gdx.app.setLogLevel(Application.LOG_ERROR);
+	}
+}
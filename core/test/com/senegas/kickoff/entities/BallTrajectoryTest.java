@@ -0,0 +1,58 @@
+package com.senegas.kickoff.entities;
+
+import com.badlogic.gdx.math.Vector3;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The predicted flight must follow {@link Ball#update(float)} exactly while nobody touches the ball
+ */
+public class BallTrajectoryTest {
+	private static final float TICK_DURATION = 1 / 50f;
+	private static final int BALL = EntityStore.BALL;
+
+	@Test
+	public void samplesMatchTheBallUpdates() {
+		for (int direction = 0; direction < 8; direction++) {
+			EntityStore store = new EntityStore();
+			Ball ball = new Ball(store, 400, 500, 0, TICK_DURATION);
+			ball.applyForce(400, direction);
+
+			BallTrajectory trajectory = ball.getTrajectory();
+			int ticks = trajectory.getTickCount();
+			assertTrue("the ball must fly for a while", ticks > 1);
+			Vector3[] samples = new Vector3[ticks];
+			for (int tick = 0; tick < ticks; tick++) {
+				samples[tick] = trajectory.getPositionAtTick(tick, new Vector3());
+			}
+
+			for (int tick = 0; tick < ticks; tick++) {
+				assertEquals("x at tick " + tick, samples[tick].x, store.x[BALL], 0);
+				assertEquals("y at tick " + tick, samples[tick].y, store.y[BALL], 0);
+				assertEquals("z at tick " + tick, samples[tick].z, store.z[BALL], 0);
+				ball.update(TICK_DURATION);
+			}
+		}
+	}
+
+	@Test
+	public void advancesAlongTheFlight() {
+		EntityStore store = new EntityStore();
+		Ball ball = new Ball(store, 400, 500, 0, TICK_DURATION);
+		ball.applyForce(400, 2);
+		int ticks = ball.getTrajectory().getTickCount();
+
+		Vector3 position = new Vector3();
+		for (int tick = 1; tick < ticks; tick++) {
+			ball.update(TICK_DURATION);
+			BallTrajectory trajectory = ball.getTrajectory();
+			assertEquals(ticks - tick, trajectory.getTickCount());
+			trajectory.getPositionAtTick(0, position);
+			assertEquals(store.x[BALL], position.x, 0);
+			assertEquals(store.y[BALL], position.y, 0);
+			assertEquals(store.z[BALL], position.z, 0);
+		}
+	}
+}
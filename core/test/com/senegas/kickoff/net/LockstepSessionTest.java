@@ -0,0 +1,90 @@
+package com.senegas.kickoff.net;
+
+import com.senegas.kickoff.simulation.Controls;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Two peers over loopback must play the same controls for every tick, even when packets get lost
+ */
+public class LockstepSessionTest {
+	private static final String LOOPBACK = "127.0.0.1";
+	private static final int TICKS = 5000;
+	private static final long TIMEOUT_MILLIS = 30000;
+
+	@Test
+	public void playsTheSameControls() throws IOException {
+		play(0);
+	}
+
+	@Test
+	public void playsTheSameControlsWithPacketLoss() throws IOException {
+		play(0.3f);
+	}
+
+	private static void play(float lossRate) throws IOException {
+		int homePort = freePort();
+		int awayPort = freePort();
+		int delay = LockstepSession.DEFAULT_INPUT_DELAY;
+		int[][] submitted = { script(1), script(2) };
+		int[][][] played = new int[2][2][TICKS];
+		long[] ticks = new long[2];
+		Random loss = new Random(lossRate == 0 ? 0 : 7);
+
+		try (LockstepSession home = new LockstepSession(Controls.HOME, homePort, new InetSocketAddress(LOOPBACK, awayPort), delay);
+		     LockstepSession away = new LockstepSession(Controls.AWAY, awayPort, new InetSocketAddress(LOOPBACK, homePort), delay)) {
+			LockstepSession[] sessions = { home, away };
+			long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+			while (ticks[0] < TICKS || ticks[1] < TICKS) {
+				assertTrue("the peers must keep playing", System.currentTimeMillis() < deadline);
+				for (int peer = 0; peer < 2; peer++) {
+					LockstepSession session = sessions[peer];
+					session.receive();
+					long tick = ticks[peer];
+					if (tick < TICKS) {
+						session.submit(tick, submitted[peer][(int) tick]);
+						if (session.isReady(tick)) {
+							played[peer][Controls.HOME][(int) tick] = session.getControls(tick, Controls.HOME);
+							played[peer][Controls.AWAY][(int) tick] = session.getControls(tick, Controls.AWAY);
+							ticks[peer]++;
+						}
+					}
+					if (loss.nextFloat() >= lossRate) session.send();
+				}
+			}
+		}
+
+		for (int tick = 0; tick < TICKS; tick++) {
+			for (int side = 0; side < 2; side++) {
+				int expected = tick < delay ? 0 : submitted[side][tick - delay];
+				assertEquals("home peer, side " + side + ", tick " + tick, expected, played[0][side][tick]);
+				assertEquals("away peer, side " + side + ", tick " + tick, expected, played[1][side][tick]);
+			}
+		}
+	}
+
+	/**
+	 * Script the controls sampled by a peer, one per tick
+	 */
+	private static int[] script(long seed) {
+		Random random = new Random(seed);
+		int[] controls = new int[TICKS];
+		for (int tick = 0; tick < TICKS; tick++) {
+			controls[tick] = random.nextInt(Controls.MASK + 1);
+		}
+		return controls;
+	}
+
+	private static int freePort() throws IOException {
+		try (DatagramSocket socket = new DatagramSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package com.senegas.kickoff.net;
+
+import com.senegas.kickoff.Headless;
+import com.senegas.kickoff.pitches.Pitch;
+import com.senegas.kickoff.replay.Recording;
+import com.senegas.kickoff.simulation.Controls;
+import com.senegas.kickoff.simulation.MatchSimulation;
+import com.senegas.kickoff.tactics.Tactic424;
+import com.senegas.kickoff.tactics.Tactic433;
+import com.senegas.kickoff.telemetry.TelemetryExporter;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Two peers predicting each other's controls over a lossy loopback must hand over the ticks of
+ * the match played with the actual controls, never a predicted one
+ */
+public class RollbackSessionTest {
+	private static final String LOOPBACK = "127.0.0.1";
+	private static final int TICKS_PER_SECOND = 50;
+	private static final int TICKS = 40 * TICKS_PER_SECOND;
+	private static final long SEED = 42;
+	private static final float LOSS_RATE = 0.3f;
+	private static final long TIMEOUT_MILLIS = 60000;
+
+	@BeforeClass
+	public static void startHeadless() {
+		Headless.start();
+	}
+
+	@Test
+	public void confirmsTheTicksActuallyPlayed() throws IOException {
+		int delay = RollbackSession.DEFAULT_INPUT_DELAY;
+		int[][] submitted = { script(1), script(2) };
+		int[][] expected = new int[TICKS][Recording.FIELDS];
+		float[][] expectedPositions = new float[TICKS][TelemetryExporter.FLOAT_COLUMNS];
+		playReference(submitted, delay, expected, expectedPositions);
+
+		int homePort = freePort();
+		int awayPort = freePort();
+		MatchSimulation[] simulations = { newMatch(), newMatch() };
+		Confirmed[] confirmed = { new Confirmed(), new Confirmed() };
+		Random loss = new Random(7);
+		int rollbacks = 0;
+
+		try (LockstepSession home = new LockstepSession(Controls.HOME, homePort, new InetSocketAddress(LOOPBACK, awayPort), delay);
+		     LockstepSession away = new LockstepSession(Controls.AWAY, awayPort, new InetSocketAddress(LOOPBACK, homePort), delay)) {
+			LockstepSession[] sessions = { home, away };
+			RollbackSession[] rollbackSessions = new RollbackSession[2];
+			for (int peer = 0; peer < 2; peer++) {
+				rollbackSessions[peer] = new RollbackSession(sessions[peer], simulations[peer]);
+				rollbackSessions[peer].setConfirmedTickListener(confirmed[peer]);
+			}
+
+			long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+			while (confirmed[0].count < TICKS || confirmed[1].count < TICKS) {
+				assertTrue("the peers must keep playing", System.currentTimeMillis() < deadline);
+				for (int peer = 0; peer < 2; peer++) {
+					sessions[peer].receive();
+					rollbackSessions[peer].synchronize();
+					long tick = simulations[peer].getTick();
+					if (tick < TICKS) rollbackSessions[peer].advance(submitted[peer][(int) tick]);
+					if (loss.nextFloat() >= LOSS_RATE) sessions[peer].send();
+				}
+			}
+			rollbacks = rollbackSessions[0].getRollbacks() + rollbackSessions[1].getRollbacks();
+		}
+
+		assertTrue("the predictions must have been wrong at times", rollbacks > 0);
+		for (int peer = 0; peer < 2; peer++) {
+			for (int tick = 0; tick < TICKS; tick++) {
+				assertArrayEquals("peer " + peer + ", tick " + tick, expected[tick], confirmed[peer].frames[tick]);
+				assertArrayEquals("peer " + peer + ", tick " + tick, expectedPositions[tick], confirmed[peer].positions[tick], 0);
+			}
+		}
+	}
+
+	/**
+	 * Collects the confirmed frames, checking they come in order
+	 */
+	private static class Confirmed implements RollbackSession.ConfirmedTickListener {
+		final int[][] frames = new int[TICKS][];
+		final float[][] positions = new float[TICKS][];
+		int count;
+
+		@Override
+		public void confirmed(long tick, int[] frame, float[] positions) {
+			assertEquals("ticks in order", count + 1, tick);
+			if (count < TICKS) {
+				frames[count] = frame.clone();
+				this.positions[count] = positions.clone();
+			}
+			count++;
+		}
+	}
+
+	/**
+	 * Play the match locally with the controls each tick of a networked match plays,
+	 * capturing the frames and positions indexed by tick
+	 */
+	private static void playReference(int[][] submitted, int delay, int[][] frames, float[][] positions) {
+		MatchSimulation simulation = newMatch();
+		for (int tick = 0; tick < TICKS; tick++) {
+			int homeControls = tick < delay ? 0 : submitted[Controls.HOME][tick - delay];
+			int awayControls = tick < delay ? 0 : submitted[Controls.AWAY][tick - delay];
+			simulation.step(homeControls, awayControls);
+			Recording.capture(simulation, frames[tick]);
+			TelemetryExporter.capture(simulation, positions[tick]);
+		}
+	}
+
+	private static MatchSimulation newMatch() {
+		MatchSimulation simulation = new MatchSimulation(Pitch.Type.CLASSIC, Tactic424.FILE_NAME, Tactic433.FILE_NAME,
+		                                                 TICKS_PER_SECOND, SEED);
+		simulation.start();
+		return simulation;
+	}
+
+	/**
+	 * Script the controls sampled by a peer, changed every few ticks so the predictions miss
+	 */
+	private static int[] script(long seed) {
+		Random random = new Random(seed);
+		int[] controls = new int[TICKS];
+		int held = 0;
+		for (int tick = 0; tick < TICKS; tick++) {
+			if (tick % 5 == 0) held = random.nextInt(Controls.MASK + 1);
+			controls[tick] = held;
+		}
+		return controls;
+	}
+
+	private static int freePort() throws IOException {
+		try (DatagramSocket socket = new DatagramSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
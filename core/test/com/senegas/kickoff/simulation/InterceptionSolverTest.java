@@ -0,0 +1,126 @@
+package com.senegas.kickoff.simulation;
+
+import com.badlogic.gdx.math.Vector3;
+import com.senegas.kickoff.Headless;
+import com.senegas.kickoff.entities.BallTrajectory;
+import com.senegas.kickoff.entities.EntityStore;
+import com.senegas.kickoff.entities.Player;
+import com.senegas.kickoff.entities.Team;
+import com.senegas.kickoff.pitches.FootballDimensions;
+import com.senegas.kickoff.pitches.Pitch;
+import com.senegas.kickoff.tactics.Tactic424;
+import com.senegas.kickoff.tactics.Tactic433;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The solved arrival times must match players actually stepped towards the ball
+ * with {@link EntityStore#moveToDestination(int)}
+ */
+public class InterceptionSolverTest {
+	private static final int TICKS_PER_SECOND = 50;
+	private static final float TICK_DURATION = 1f / TICKS_PER_SECOND;
+	private static final float REACH = Player.SPRITE_WIDTH / 2;
+	/**
+	 * The solver runs along a diagonal then straight on, the stepped players switch direction at
+	 * 22.5 degrees and move by whole ticks
+	 */
+	private static final float TOLERANCE = 2 * TICK_DURATION;
+
+	@BeforeClass
+	public static void startHeadless() {
+		Headless.start();
+	}
+
+	@Test
+	public void arrivalTimesMatchSteppedPlayers() {
+		for (int direction = 0; direction < 8; direction++) {
+			MatchSimulation simulation = new MatchSimulation(Pitch.Type.CLASSIC, Tactic424.FILE_NAME, Tactic433.FILE_NAME,
+			                                                 TICKS_PER_SECOND, direction);
+			spreadPlayers(simulation.getStore());
+			simulation.getBall().setPosition(400, 600, 0);
+			simulation.getBall().applyForce(300, direction);
+
+			InterceptionSolver solver = simulation.getInterceptions();
+			BallTrajectory trajectory = simulation.getBall().getTrajectory();
+			for (int slot = 0; slot < EntityStore.PLAYER_COUNT; slot++) {
+				float expected = steppedArrivalTime(simulation, trajectory, slot);
+				assertEquals("direction " + direction + ", slot " + slot, expected, solver.getTime(slot), TOLERANCE);
+			}
+		}
+	}
+
+	@Test
+	public void firstSlotsArriveFirst() {
+		MatchSimulation simulation = new MatchSimulation(Pitch.Type.CLASSIC, Tactic424.FILE_NAME, Tactic433.FILE_NAME,
+		                                                 TICKS_PER_SECOND, 0);
+		spreadPlayers(simulation.getStore());
+		simulation.getBall().setPosition(400, 600, 0);
+		simulation.getBall().applyForce(300, 3);
+
+		InterceptionSolver solver = simulation.getInterceptions();
+		for (Team team : new Team[] { simulation.getHomeTeam(), simulation.getAwayTeam() }) {
+			int first = solver.getFirstSlot(team);
+			for (int i = team.getFirstIndex(); i < team.getFirstIndex() + EntityStore.PLAYERS_PER_TEAM; i++) {
+				assertTrue(solver.getTime(first) <= solver.getTime(i));
+			}
+		}
+	}
+
+	/**
+	 * Scatter the players over the pitch on a grid, away from their lined up introduction spots
+	 */
+	private static void spreadPlayers(EntityStore store) {
+		for (int i = 0; i < EntityStore.PLAYER_COUNT; i++) {
+			store.x[i] = (float) (Pitch.OUTER_BOTTOM_EDGE_X + 40 + (i % 5) * Pitch.PITCH_WIDTH_IN_PX / 5);
+			store.y[i] = (float) (Pitch.OUTER_BOTTOM_EDGE_Y + 40 + (i / 5) * Pitch.PITCH_HEIGHT_IN_PX / 4);
+		}
+	}
+
+	/**
+	 * Earliest tick a player stepped straight to the ball position of that tick is within reach,
+	 * or the time to fetch the ball once stopped
+	 */
+	private static float steppedArrivalTime(MatchSimulation simulation, BallTrajectory trajectory, int slot) {
+		EntityStore store = simulation.getStore();
+		Team team = slot < EntityStore.PLAYERS_PER_TEAM ? simulation.getHomeTeam() : simulation.getAwayTeam();
+		float reachHeight = (float) (team.getPlayers().get(slot - team.getFirstIndex()).height() / FootballDimensions.CM_PER_PIXEL);
+
+		Vector3 ball = new Vector3();
+		int ticks = trajectory.getTickCount();
+		for (int tick = 0; tick < ticks; tick++) {
+			trajectory.getPositionAtTick(tick, ball);
+			if (ball.z >= reachHeight) continue;
+
+			if (stepsToReach(store, slot, ball.x, ball.y, tick) <= tick) return tick * TICK_DURATION;
+		}
+
+		trajectory.getRestPosition(ball);
+		int steps = stepsToReach(store, slot, ball.x, ball.y, Integer.MAX_VALUE);
+		return Math.max((ticks - 1) * TICK_DURATION, steps * TICK_DURATION);
+	}
+
+	/**
+	 * Step a copy of a player towards a point until it is within reach
+	 * @return the number of ticks, more than maxSteps if not reached by then
+	 */
+	private static int stepsToReach(EntityStore store, int slot, float x, float y, int maxSteps) {
+		EntityStore runner = new EntityStore();
+		runner.x[0] = store.x[slot];
+		runner.y[0] = store.y[slot];
+		runner.speed[0] = store.speed[slot];
+		runner.destX[0] = x;
+		runner.destY[0] = y;
+
+		int steps = 0;
+		while (runner.distanceSquared(0, x, y) > REACH * REACH) {
+			if (steps > maxSteps) return steps;
+			runner.updatePlayers(0, 1, TICK_DURATION);
+			steps++;
+		}
+		return steps;
+	}
+}
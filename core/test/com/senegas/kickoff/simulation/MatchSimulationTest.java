@@ -0,0 +1,60 @@
+package com.senegas.kickoff.simulation;
+
+import com.senegas.kickoff.Headless;
+import com.senegas.kickoff.pitches.Pitch;
+import com.senegas.kickoff.states.MatchState;
+import com.senegas.kickoff.tactics.Tactic424;
+import com.senegas.kickoff.tactics.Tactic433;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Two matches with the same seed stepped with the same controls must stay identical,
+ * which networked matches rely on
+ */
+public class MatchSimulationTest {
+	private static final int TICKS_PER_SECOND = 50;
+	/** Long enough to get past the kick off and play with the controls */
+	private static final int TICKS = 60 * TICKS_PER_SECOND;
+
+	@BeforeClass
+	public static void startHeadless() {
+		Headless.start();
+	}
+
+	static MatchSimulation newMatch(long seed) {
+		MatchSimulation simulation = new MatchSimulation(Pitch.Type.CLASSIC, Tactic424.FILE_NAME, Tactic433.FILE_NAME,
+		                                                 TICKS_PER_SECOND, seed);
+		simulation.start();
+		return simulation;
+	}
+
+	@Test
+	public void sameSeedAndControlsGiveTheSameMatch() {
+		int[] home = Snapshots.scriptControls(1, TICKS);
+		int[] away = Snapshots.scriptControls(2, TICKS);
+		MatchSimulation first = newMatch(42);
+		MatchSimulation second = newMatch(42);
+		MatchSnapshot firstSnapshot = new MatchSnapshot();
+		MatchSnapshot secondSnapshot = new MatchSnapshot();
+		boolean played = false;
+
+		for (int tick = 0; tick < TICKS; tick++) {
+			first.step(home[tick], away[tick]);
+			second.step(home[tick], away[tick]);
+			played |= first.getState() == MatchState.INPLAY;
+			if (tick % TICKS_PER_SECOND == 0) {
+				first.save(firstSnapshot);
+				second.save(secondSnapshot);
+				Snapshots.assertSame(firstSnapshot, secondSnapshot);
+			}
+		}
+
+		assertTrue("the controls must have been played", played);
+		first.save(firstSnapshot);
+		second.save(secondSnapshot);
+		Snapshots.assertSame(firstSnapshot, secondSnapshot);
+	}
+}
@@ -0,0 +1,55 @@
+package com.senegas.kickoff.simulation;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Snapshot comparisons and scripted controls shared by the simulation tests
+ */
+final class Snapshots {
+	private Snapshots() {}
+
+	/**
+	 * Check that two snapshots hold the same state, bit for bit
+	 */
+	static void assertSame(MatchSnapshot expected, MatchSnapshot actual) {
+		assertEquals("tick", expected.tick, actual.tick);
+		assertTrue("entities at tick " + expected.tick, Arrays.equals(expected.floats, actual.floats));
+		assertArrayEquals("entities at tick " + expected.tick, expected.ints, actual.ints);
+		assertEquals("random", expected.randomSeed0, actual.randomSeed0);
+		assertEquals("random", expected.randomSeed1, actual.randomSeed1);
+		assertEquals("state", expected.state, actual.state);
+		assertEquals("pending state", expected.pendingState, actual.pendingState);
+		assertEquals("pending ticks", expected.pendingTicks, actual.pendingTicks);
+		assertEquals("kick off team", expected.kickoffTeam, actual.kickoffTeam);
+		assertEquals("last touch team", expected.lastTouchTeam, actual.lastTouchTeam);
+		assertEquals("ball in contact", expected.ballInContact, actual.ballInContact);
+		assertEquals("home tactic", expected.homeTacticKey, actual.homeTacticKey);
+		assertEquals("away tactic", expected.awayTacticKey, actual.awayTacticKey);
+		assertArrayEquals("goals", expected.goals, actual.goals);
+		assertArrayEquals("shots", expected.shots, actual.shots);
+		assertArrayEquals("possession", expected.possessionTicks, actual.possessionTicks);
+		assertArrayEquals("controls", expected.previousControls, actual.previousControls);
+	}
+
+	/**
+	 * Script the controls of a side, held for a while then changed, as a player would
+	 * @param seed the script seed
+	 * @param ticks the number of ticks
+	 * @return the controls indexed by tick
+	 */
+	static int[] scriptControls(long seed, int ticks) {
+		Random random = new Random(seed);
+		int[] controls = new int[ticks];
+		int held = 0;
+		for (int tick = 0; tick < ticks; tick++) {
+			if (tick % 20 == 0) held = random.nextInt(3) == 0 ? 0 : random.nextInt(Controls.MASK + 1);
+			controls[tick] = held;
+		}
+		return controls;
+	}
+}
@@ -0,0 +1,41 @@
+package com.senegas.kickoff.desktop;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.senegas.kickoff.pitches.Pitch;
+import com.senegas.kickoff.simulation.BatchResult;
+import com.senegas.kickoff.simulation.BatchRunner;
+
+/**
+ * Simulates a batch of matches without any window and prints a summary
+ * <p>
+ * Usage: BatchLauncher [matches] [homeTactic] [awayTactic] [pitchType] [seed]
+ */
+public class BatchLauncher {
+	public static void main (final String[] arg) {
+		final int matches = arg.length > 0 ? Integer.parseInt(arg[0]) : 1000;
+		final String homeTactic = arg.length > 1 ? arg[1] : "tactics/4-2-4.xml";
+		final String awayTactic = arg.length > 2 ? arg[2] : "tactics/4-3-3.xml";
+		final Pitch.Type pitchType = arg.length > 3 ? Pitch.Type.valueOf(arg[3]) : Pitch.Type.CLASSIC;
+		final long seed = arg.length > 4 ? Long.parseLong(arg[4]) : 0;
+
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		new HeadlessApplication(new ApplicationAdapter() {
+			@Override
+			public void create() {
+				Gdx.app.setLogLevel(Application.LOG_ERROR);
+
+				long start = System.nanoTime();
+				BatchResult result = BatchRunner.run(matches, homeTactic, awayTactic, pitchType, seed);
+				long elapsed = (System.nanoTime() - start) / 1000000;
+
+				System.out.println(homeTactic + " vs " + awayTactic + " on " + pitchType + ": " + result);
+				System.out.println("Simulated in " + elapsed + " ms");
+				Gdx.app.exit();
+			}
+		}, config);
+	}
+}
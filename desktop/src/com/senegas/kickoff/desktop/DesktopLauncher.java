@@ -3,7 +3,26 @@ package com.senegas.kickoff.desktop;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 import com.senegas.kickoff.KickOff;
+import com.senegas.kickoff.net.LockstepConfig;
+import com.senegas.kickoff.net.LockstepSession;
+import com.senegas.kickoff.net.RollbackSession;
+import com.senegas.kickoff.simulation.Controls;
 
+import java.net.InetSocketAddress;
+
+/**
+ * Starts the game in a window
+ * <p>
+ * Usage: DesktopLauncher [--lockstep|--rollback home|away localPort remoteHost:remotePort [inputDelay] [seed]]
+ * <p>
+ * With --lockstep the matches are played against another peer, e.g. on the same machine:
+ * <pre>
+ * DesktopLauncher --lockstep home 7001 localhost:7002
+ * DesktopLauncher --lockstep away 7002 localhost:7001
+ * </pre>
+ * --rollback does the same but predicts the controls of the other peer instead of waiting
+ * for them, both peers must use it.
+ */
 public class DesktopLauncher {
 	public static void main (String[] arg) {
 		LwjglApplicationConfiguration config = new LwjglApplicationConfiguration();
@@ -12,6 +31,30 @@ public class DesktopLauncher {
 		config.useGL30 = true;
 		config.width = 1280;
 		config.height = 720;
-		new LwjglApplication(new KickOff(), config);
+		LockstepConfig lockstep = parseLockstep(arg);
+		if (lockstep != null) {
+			config.title += lockstep.getLocalSide() == Controls.HOME ? " (home)" : " (away)";
+		}
+		new LwjglApplication(new KickOff(lockstep), config);
+	}
+
+	/**
+	 * Parse the lockstep or rollback settings
+	 * @param arg the command line arguments
+	 * @return the settings, null to play locally
+	 */
+	private static LockstepConfig parseLockstep(String[] arg) {
+		if (arg.length < 4) return null;
+		boolean rollback = arg[0].equals("--rollback");
+		if (!rollback && !arg[0].equals("--lockstep")) return null;
+
+		int side = arg[1].equals("away") ? Controls.AWAY : Controls.HOME;
+		int localPort = Integer.parseInt(arg[2]);
+		int colon = arg[3].lastIndexOf(':');
+		InetSocketAddress remote = new InetSocketAddress(arg[3].substring(0, colon), Integer.parseInt(arg[3].substring(colon + 1)));
+		int inputDelay = arg.length > 4 ? Integer.parseInt(arg[4])
+		                                : (rollback ? RollbackSession.DEFAULT_INPUT_DELAY : LockstepSession.DEFAULT_INPUT_DELAY);
+		long seed = arg.length > 5 ? Long.parseLong(arg[5]) : 0;
+		return new LockstepConfig(side, localPort, remote, inputDelay, seed, rollback);
 	}
 }
@@ -0,0 +1,56 @@
+package com.senegas.kickoff.desktop;
+
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
+import com.badlogic.gdx.tools.texturepacker.TexturePacker;
+import com.senegas.kickoff.Assets;
+
+import java.io.File;
+
+/**
+ * Packs the sprite sheets drawn during a match into the single atlas loaded at runtime, see
+ * {@link Assets#SPRITES}, unless the atlas is newer than all of them. Each sheet becomes one
+ * region named after its file, the renderers split it in frames.
+ * <p>
+ * Usage: SpritePacker [assetsDirectory]
+ */
+public class SpritePacker {
+	/** Sheets packed in the atlas, relative to the assets directory */
+	private static final String[] SHEETS = {
+		"entities/style1a.png", "entities/style1b.png", "entities/ball.png"
+	};
+
+	public static void main (String[] arg) {
+		File assetsDirectory = new File(arg.length > 0 ? arg[0] : ".");
+		File atlas = new File(assetsDirectory, Assets.SPRITES);
+
+		boolean upToDate = atlas.exists();
+		for (String sheet : SHEETS) {
+			File file = new File(assetsDirectory, sheet);
+			if (!file.exists()) {
+				System.err.println(file.getPath() + " is missing");
+				return;
+			}
+			upToDate &= atlas.lastModified() >= file.lastModified();
+		}
+		if (upToDate) return;
+
+		TexturePacker.Settings settings = new TexturePacker.Settings();
+		// the sheets are split on a fixed grid, so they must be packed as they are
+		settings.rotation = false;
+		settings.stripWhitespaceX = false;
+		settings.stripWhitespaceY = false;
+		settings.paddingX = 2;
+		settings.paddingY = 2;
+		settings.filterMin = TextureFilter.Nearest;
+		settings.filterMag = TextureFilter.Nearest;
+		settings.maxWidth = 2048;
+		settings.maxHeight = 2048;
+
+		TexturePacker packer = new TexturePacker(settings);
+		for (String sheet : SHEETS) {
+			packer.addImage(new File(assetsDirectory, sheet));
+		}
+		packer.pack(atlas.getParentFile(), atlas.getName());
+		System.out.println("Packed " + SHEETS.length + " sheets to " + atlas.getPath());
+	}
+}
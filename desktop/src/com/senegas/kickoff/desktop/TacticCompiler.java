@@ -0,0 +1,30 @@
+package com.senegas.kickoff.desktop;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.senegas.kickoff.tactics.TacticFile;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Compiles the tactic xml files of a directory into the binary form loaded at runtime,
+ * skipping the ones whose compiled file is up to date
+ * <p>
+ * Usage: TacticCompiler [tacticsDirectory]
+ */
+public class TacticCompiler {
+	public static void main (String[] arg) throws IOException {
+		FileHandle directory = new FileHandle(new File(arg.length > 0 ? arg[0] : "tactics"));
+		if (!directory.isDirectory()) {
+			System.err.println(directory.path() + " is not a directory");
+			return;
+		}
+
+		for (FileHandle xml : directory.list("." + TacticFile.XML_EXTENSION)) {
+			if (TacticFile.isCompiled(xml)) continue;
+
+			FileHandle compiled = TacticFile.compile(xml);
+			System.out.println("Compiled " + xml.path() + " to " + compiled.path());
+		}
+	}
+}
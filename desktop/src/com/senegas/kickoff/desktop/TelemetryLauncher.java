@@ -0,0 +1,60 @@
+package com.senegas.kickoff.desktop;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.files.FileHandle;
+import com.senegas.kickoff.pitches.Pitch;
+import com.senegas.kickoff.simulation.MatchSimulation;
+import com.senegas.kickoff.telemetry.TelemetryExporter;
+
+import java.io.IOException;
+
+/**
+ * Simulates a match without any window and exports its telemetry
+ * <p>
+ * Usage: TelemetryLauncher [minutes] [homeTactic] [awayTactic] [pitchType] [seed] [sampleInterval]
+ */
+public class TelemetryLauncher {
+	public static void main (final String[] arg) {
+		final float minutes = arg.length > 0 ? Float.parseFloat(arg[0]) : 90;
+		final String homeTactic = arg.length > 1 ? arg[1] : "tactics/4-2-4.xml";
+		final String awayTactic = arg.length > 2 ? arg[2] : "tactics/4-3-3.xml";
+		final Pitch.Type pitchType = arg.length > 3 ? Pitch.Type.valueOf(arg[3]) : Pitch.Type.CLASSIC;
+		final long seed = arg.length > 4 ? Long.parseLong(arg[4]) : 0;
+		final int sampleInterval = arg.length > 5 ? Integer.parseInt(arg[5]) : 1;
+
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		new HeadlessApplication(new ApplicationAdapter() {
+			@Override
+			public void create() {
+				Gdx.app.setLogLevel(Application.LOG_ERROR);
+
+				MatchSimulation simulation = new MatchSimulation(pitchType, homeTactic, awayTactic,
+				                                                 MatchSimulation.DEFAULT_TICKS_PER_SECOND, seed);
+				FileHandle file = TelemetryExporter.newFile();
+				long ticks = Math.round(minutes * 60 * simulation.getTicksPerSecond());
+
+				long start = System.nanoTime();
+				try {
+					TelemetryExporter exporter = new TelemetryExporter(file, simulation, sampleInterval);
+					simulation.start();
+					for (long tick = 0; tick < ticks; tick++) {
+						simulation.step();
+						exporter.record(simulation);
+					}
+					exporter.close();
+
+					long elapsed = (System.nanoTime() - start) / 1000000;
+					System.out.println(ticks + " ticks exported to " + file.file().getAbsolutePath() + " in " + elapsed + " ms, "
+					                   + exporter.getDroppedRows() + " rows dropped");
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+				Gdx.app.exit();
+			}
+		}, config);
+	}
+}